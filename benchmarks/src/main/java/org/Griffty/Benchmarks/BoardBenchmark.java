@@ -0,0 +1,91 @@
+package org.Griffty.Benchmarks;
+
+import org.Griffty.Benchmarks.Baseline.ArrayBoard;
+import org.Griffty.Board;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the single operations of the game board: putting and removing a token, checking for a win
+ * and copying the cells. Every operation is measured on the bitboard {@link Board} and on the old {@link ArrayBoard}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class BoardBenchmark {
+    @Param({"empty", "middle", "end"})
+    public String position;
+
+    private Board board;
+    private ArrayBoard arrayBoard;
+    private int column;
+
+    /**
+     * Sets up both boards on the position and picks a column that is not full.
+     */
+    @Setup
+    public void setUp() {
+        String moves = Positions.byName(position);
+        board = Positions.board(moves);
+        arrayBoard = Positions.arrayBoard(moves);
+        column = 3;
+        while (board.getHeight(column) == Board.ROWS) {
+            column = (column + 1) % Board.COLUMNS;
+        }
+    }
+
+    @Benchmark
+    public boolean putRemoveToken() {
+        boolean placed = board.putToken(column, 1);
+        board.removeToken(column);
+        return placed;
+    }
+
+    @Benchmark
+    public boolean putRemoveTokenArray() {
+        boolean placed = arrayBoard.putToken(column, 1);
+        arrayBoard.removeToken(column);
+        return placed;
+    }
+
+    @Benchmark
+    public int checkWin() {
+        return board.checkWin(false);
+    }
+
+    @Benchmark
+    public int checkWinArray() {
+        return arrayBoard.checkWin(false);
+    }
+
+    @Benchmark
+    public boolean putCheckRemove() {
+        board.putToken(column, 1);
+        boolean won = board.lastMoveWins();
+        board.removeToken(column);
+        return won;
+    }
+
+    @Benchmark
+    public int putCheckRemoveArray() {
+        arrayBoard.putToken(column, 1);
+        int won = arrayBoard.checkWin(false);
+        arrayBoard.removeToken(column);
+        return won;
+    }
+
+    @Benchmark
+    public void getCells(Blackhole blackhole) {
+        blackhole.consume(board.getCells());
+    }
+
+    @Benchmark
+    public void getCellsArray(Blackhole blackhole) {
+        blackhole.consume(arrayBoard.getCells());
+    }
+}
@@ -0,0 +1,47 @@
+package org.Griffty.Benchmarks;
+
+import org.Griffty.AI.AIPredictor;
+import org.Griffty.Benchmarks.Baseline.ArrayAIPredictor;
+import org.Griffty.Benchmarks.Baseline.ArrayBoard;
+import org.Griffty.Board;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the evaluation of a position: the score kept up to date by {@link Board}
+ * against the full scan of the old {@link ArrayAIPredictor}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class EvaluateBenchmark {
+    @Param({"empty", "middle", "end"})
+    public String position;
+
+    private Board board;
+    private ArrayBoard arrayBoard;
+
+    /**
+     * Sets up both boards on the position.
+     */
+    @Setup
+    public void setUp() {
+        String moves = Positions.byName(position);
+        board = Positions.board(moves);
+        arrayBoard = Positions.arrayBoard(moves);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return AIPredictor.evaluate(board);
+    }
+
+    @Benchmark
+    public int evaluateArray() {
+        return ArrayAIPredictor.evaluate(arrayBoard);
+    }
+}
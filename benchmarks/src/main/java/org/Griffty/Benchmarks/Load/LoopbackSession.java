@@ -0,0 +1,114 @@
+package org.Griffty.Benchmarks.Load;
+
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.PongMessage;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.Session;
+import org.Griffty.Network.GameSessionManager;
+import org.Griffty.Network.WebSocketServerEndpoint;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * This class connects a {@link WebSocketServerEndpoint} to an in-process client, without a network in between.
+ * It lets the load tests open thousands of connections to the game server in a single JVM.
+ * <p>
+ * The WebSocket {@link Session} is a dynamic proxy: text sent by the server is handed to the client,
+ * pings are answered with pongs, and closing it calls the close handler of the endpoint like the container would.
+ */
+public class LoopbackSession {
+    private final WebSocketServerEndpoint endpoint = new WebSocketServerEndpoint();
+    private final Consumer<String> client;
+    private final String gameId;
+    private Session session;
+    private volatile boolean open = true;
+
+    /**
+     * Constructor for the LoopbackSession class.
+     * @param gameId The id of the game to join.
+     * @param client Receives every text message the server sends.
+     */
+    public LoopbackSession(String gameId, Consumer<String> client) {
+        this.gameId = gameId;
+        this.client = client;
+    }
+
+    /**
+     * This method opens the connection, which seats it in its game.
+     */
+    public void open() {
+        session = createSession();
+        endpoint.OnOpen(session);
+    }
+
+    /**
+     * This method sends a text message from the client to the server.
+     * @param message The message.
+     */
+    public void send(String message) {
+        endpoint.OnMessage(message);
+    }
+
+    /**
+     * This method closes the connection from the client side.
+     */
+    public void close() {
+        if (open) {
+            open = false;
+            endpoint.OnClose(session, new CloseReason(CloseReason.CloseCodes.GOING_AWAY, "Client left"));
+        }
+    }
+
+    /**
+     * This method checks whether the connection is still open.
+     * @return true if neither side closed it.
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * This method creates the WebSocket session the endpoint talks to.
+     * @return The session.
+     */
+    private Session createSession() {
+        ClassLoader loader = LoopbackSession.class.getClassLoader();
+        RemoteEndpoint.Async remote = (RemoteEndpoint.Async) Proxy.newProxyInstance(loader, new Class<?>[]{RemoteEndpoint.Async.class}, (proxy, method, args) -> {
+            if (method.getName().equals("sendText")) {
+                client.accept((String) args[0]);
+            } else if (method.getName().equals("sendPing")) {
+                ByteBuffer data = ((ByteBuffer) args[0]).duplicate();
+                PongMessage pong = () -> data;
+                endpoint.OnPong(pong);
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+        Map<String, List<String>> parameters = Map.of(GameSessionManager.GAME_PARAMETER, List.of(gameId));
+        return (Session) Proxy.newProxyInstance(loader, new Class<?>[]{Session.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getAsyncRemote":
+                    return remote;
+                case "isOpen":
+                    return open;
+                case "getRequestParameterMap":
+                    return parameters;
+                case "close":
+                    close();
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "LoopbackSession[" + gameId + "]";
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
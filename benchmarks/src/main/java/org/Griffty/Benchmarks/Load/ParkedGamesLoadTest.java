@@ -0,0 +1,87 @@
+package org.Griffty.Benchmarks.Load;
+
+import org.Griffty.Network.GameSessionManager;
+import org.Griffty.Util.GameExecutors;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is a load test for the hosted games of the server.
+ * It starts many games between in-process clients that never answer, so every game parks while waiting for input,
+ * and reports the threads and the heap the parked games take. Then all clients leave and it waits for the games to end.
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar org.Griffty.Benchmarks.Load.ParkedGamesLoadTest [games] [virtual | platform]}
+ * <p>
+ * With virtual threads the number of platform threads stays flat no matter how many games wait.
+ * With platform threads every waiting game holds a thread of its own.
+ */
+public class ParkedGamesLoadTest {
+    private static final int DEFAULT_GAMES = 10_000;
+    private static final long TIMEOUT_SECONDS = 120;
+
+    /**
+     * The main method of the load test.
+     * @param args The number of games and the type of the game threads.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        String threads = args.length > 1 ? args[1] : GameExecutors.VIRTUAL;
+        if (threads.equals(GameExecutors.VIRTUAL) && !GameExecutors.isVirtualThreadSupported()) {
+            System.out.println("Virtual threads need Java 21, running games on platform threads");
+        }
+        GameSessionManager manager = GameSessionManager.getInstance();
+        manager.setGameExecutor(GameExecutors.newGameExecutor(threads));
+        manager.setHosting(true);
+
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memoryBean.getHeapMemoryUsage().getUsed();
+        int threadsBefore = threadBean.getThreadCount();
+
+        CountDownLatch parked = new CountDownLatch(games);
+        List<LoopbackSession> clients = new ArrayList<>(games * 2);
+        long start = System.nanoTime();
+        for (int game = 0; game < games; game++) {
+            for (int player = 0; player < 2; player++) {
+                LoopbackSession client = new LoopbackSession("load-" + game, message -> {
+                    if (message.equals("requestGameInput")) {
+                        parked.countDown();
+                    }
+                });
+                clients.add(client);
+                client.open();
+            }
+        }
+        if (!parked.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            System.out.println("Only " + (games - parked.getCount()) + " of " + games + " games started in time");
+            System.exit(1);
+        }
+        long startMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.gc();
+        long heapParked = memoryBean.getHeapMemoryUsage().getUsed();
+
+        System.out.println("Games waiting for input: " + games + " (started in " + startMillis + " ms)");
+        System.out.println("Open games:              " + manager.getSessionCount());
+        System.out.println("Live platform threads:   " + threadBean.getThreadCount() + " (" + threadsBefore + " before, peak " + threadBean.getPeakThreadCount() + ")");
+        System.out.println("Heap per waiting game:   " + (heapParked - heapBefore) / games + " bytes");
+
+        start = System.nanoTime();
+        for (LoopbackSession client : clients) {
+            client.close();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (manager.getSessionCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        System.out.println("Games left after clients left: " + manager.getSessionCount()
+                + " (ended in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms)");
+        System.exit(manager.getSessionCount() == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,248 @@
+package org.Griffty.Benchmarks.Load;
+
+import org.Griffty.AI.AIPredictor;
+import org.Griffty.Board;
+import org.Griffty.Listeners.ServerMessageListener;
+import org.Griffty.Network.LatencyHistogram;
+import org.Griffty.Network.WebSocketClientEndpoint;
+import org.Griffty.enums.InputErrorReason;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a player without a user that plays on a game server through a {@link WebSocketClientEndpoint}.
+ * <p>
+ * It answers every request of the server after a fixed think time, with a random move or a move of a shallow AI.
+ * The answers are scheduled on a shared scheduler, so the threads of the WebSocket container are never held up
+ * and thousands of players need only a few threads. After the deadline it finishes its game and declines to play again.
+ * <p>
+ * The round trip of a move is the time from sending it until the server shows the board with the move on it.
+ * All players record into the same {@link Stats}.
+ */
+public class SimulatedPlayer implements ServerMessageListener {
+    /**
+     * Plays a random column that is not full.
+     */
+    public static final String RANDOM = "random";
+    /**
+     * Plays the move of a shallow AI.
+     */
+    public static final String AI = "ai";
+    private static final int AI_DEPTH = 4;
+    private static final int AI_TABLE_SIZE_MB = 1;
+    private static final ThreadLocal<AIPredictor> PREDICTOR = ThreadLocal.withInitial(() -> new AIPredictor(AI_DEPTH, AI_TABLE_SIZE_MB));
+
+    private final Stats stats;
+    private final Executor thinking;
+    private final boolean useAI;
+    private final long deadline;
+    private final CountDownLatch finished;
+    private final CompletableFuture<WebSocketClientEndpoint> client = new CompletableFuture<>();
+    private volatile int side = 2;
+    private volatile int[][] cells = new int[Board.ROWS][Board.COLUMNS];
+    private volatile long moveSent;
+
+    /**
+     * Constructor for the SimulatedPlayer class.
+     * @param stats The statistics to record into.
+     * @param scheduler The scheduler the answers are made on.
+     * @param thinkTime The number of milliseconds to wait before every answer.
+     * @param strategy Either {@link #RANDOM} or {@link #AI}.
+     * @param deadline The time in nanoseconds after which no new game is started.
+     * @param finished Counted down once the player is disconnected.
+     */
+    public SimulatedPlayer(Stats stats, ScheduledExecutorService scheduler, long thinkTime, String strategy, long deadline, CountDownLatch finished) {
+        switch (strategy) {
+            case RANDOM:
+                useAI = false;
+                break;
+            case AI:
+                useAI = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+        this.stats = stats;
+        this.thinking = CompletableFuture.delayedExecutor(thinkTime, TimeUnit.MILLISECONDS, scheduler);
+        this.deadline = deadline;
+        this.finished = finished;
+    }
+
+    /**
+     * This method is used to connect the player to the server.
+     * A player that cannot connect is counted as an error and is finished right away.
+     * @param uri The URI of the server, with the game to join.
+     */
+    public void connect(URI uri) {
+        try {
+            client.complete(WebSocketClientEndpoint.connectToServer(this, uri));
+        } catch (RuntimeException e) {
+            stats.connectErrors.increment();
+            client.completeExceptionally(e);
+            finished.countDown();
+        }
+    }
+
+    /**
+     * Remembers the side the player plays, so the AI knows whose tokens are whose.
+     * @param side The side of the player, 1 for red and 2 for yellow.
+     */
+    @Override
+    public void assignSide(int side) {
+        stats.received.increment();
+        this.side = side;
+    }
+
+    /**
+     * Sends a move after the think time.
+     */
+    @Override
+    public void requestGameInput() {
+        stats.received.increment();
+        int[][] board = cells;
+        client.thenAcceptAsync(endpoint -> {
+            int col = useAI ? aiMove(board) : randomMove(board);
+            moveSent = System.nanoTime();
+            endpoint.sendGameInput(col);
+            stats.moves.increment();
+            stats.sent.increment();
+        }, thinking);
+    }
+
+    /**
+     * Agrees to play again after the think time, unless the deadline has passed.
+     */
+    @Override
+    public void requestPlayAgain() {
+        stats.received.increment();
+        boolean decision = System.nanoTime() < deadline;
+        client.thenAcceptAsync(endpoint -> {
+            endpoint.sendPlayAgain(decision);
+            stats.sent.increment();
+        }, thinking);
+    }
+
+    /**
+     * Counts a rejected move as an error. The server asks for another move.
+     * @param errorReason The reason why the move was rejected.
+     */
+    @Override
+    public void wrongInput(InputErrorReason errorReason) {
+        stats.received.increment();
+        stats.wrongInputs.increment();
+        moveSent = 0;
+    }
+
+    /**
+     * Remembers the board and records the round trip of the last move.
+     * @param cells The current state of the game board.
+     * @param currentTurn The current turn in the game.
+     */
+    @Override
+    public void updateUI(int[][] cells, int currentTurn) {
+        stats.received.increment();
+        this.cells = cells;
+        moveArrived();
+    }
+
+    /**
+     * Remembers the final board and records the round trip of the last move.
+     * @param cells The final state of the game board.
+     */
+    @Override
+    public void updateBoard(int[][] cells) {
+        stats.received.increment();
+        this.cells = cells;
+        moveArrived();
+    }
+
+    /**
+     * Counts the game and clears the board for the next one.
+     * @param victoryStatus The status of the victory.
+     */
+    @Override
+    public void announceWinner(int victoryStatus) {
+        stats.received.increment();
+        stats.games.increment();
+        cells = new int[Board.ROWS][Board.COLUMNS];
+    }
+
+    /**
+     * Finishes the player. A player that is disconnected before the deadline was dropped, which counts as an error.
+     * After the deadline the server ends the game as soon as one of the players declines to play again.
+     */
+    @Override
+    public void disconnected() {
+        if (System.nanoTime() < deadline) {
+            stats.dropped.increment();
+        }
+        finished.countDown();
+    }
+
+    /**
+     * This method is used to record the round trip of the last move once the server showed it.
+     */
+    private void moveArrived() {
+        long sent = moveSent;
+        if (sent != 0) {
+            moveSent = 0;
+            stats.roundTrip.record(System.nanoTime() - sent);
+        }
+    }
+
+    /**
+     * This method is used to pick a random column that is not full.
+     * @param cells The current state of the game board.
+     * @return The column of the move.
+     */
+    private static int randomMove(int[][] cells) {
+        int[] open = new int[Board.COLUMNS];
+        int count = 0;
+        for (int col = 0; col < Board.COLUMNS; col++) {
+            if (cells[0][col] == 0) {
+                open[count++] = col;
+            }
+        }
+        return count == 0 ? 0 : open[ThreadLocalRandom.current().nextInt(count)];
+    }
+
+    /**
+     * This method is used to ask the AI for a move.
+     * The AI always plays side 2, so for side 1 the tokens of the two sides are swapped first.
+     * @param cells The current state of the game board.
+     * @return The column of the move.
+     */
+    private int aiMove(int[][] cells) {
+        if (side == 1) {
+            int[][] swapped = new int[Board.ROWS][Board.COLUMNS];
+            for (int row = 0; row < Board.ROWS; row++) {
+                for (int col = 0; col < Board.COLUMNS; col++) {
+                    swapped[row][col] = cells[row][col] == 0 ? 0 : 3 - cells[row][col];
+                }
+            }
+            cells = swapped;
+        }
+        return PREDICTOR.get().makeMove(new Board(cells));
+    }
+
+    /**
+     * This class holds the counters that all simulated players of a run share.
+     */
+    public static class Stats {
+        final LongAdder received = new LongAdder();
+        final LongAdder sent = new LongAdder();
+        final LongAdder moves = new LongAdder();
+        final LongAdder games = new LongAdder();
+        final LongAdder connectErrors = new LongAdder();
+        final LongAdder wrongInputs = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final LatencyHistogram roundTrip = new LatencyHistogram();
+    }
+}
@@ -0,0 +1,185 @@
+package org.Griffty.Benchmarks.Load;
+
+import org.Griffty.Statistics.PlayerStatistics;
+import org.Griffty.Statistics.StatisticsHandler;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a stress test for the statistics of the player.
+ * Many threads count games and moves at once, like the games of a busy server, while another thread keeps reading them.
+ * The counting runs in a new JVM, which checks that its statistics hold exactly the totals that were counted
+ * and then exits, writing its final snapshot. This JVM then rebuilds the statistics from the snapshot and the event log
+ * and checks the totals again.
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar org.Griffty.Benchmarks.Load.StatisticsStressTest [threads] [games per thread]}
+ * <p>
+ * The statistics are kept in a temporary folder, so the test does not touch the statistics of the user.
+ */
+public class StatisticsStressTest {
+    private static final int DEFAULT_THREADS = 16;
+    private static final int DEFAULT_GAMES = 10_000;
+    private static final String COUNT = "--count";
+    private static final String TOTALS = "Totals: ";
+
+    /**
+     * The main method of the stress test.
+     * @param args The number of threads and the number of games every thread counts.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(COUNT)) {
+            count(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+            return;
+        }
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_THREADS;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_GAMES;
+        File home = Files.createTempDirectory("statistics-stress").toFile();
+        Process counter = new ProcessBuilder(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-Duser.home=" + home.getPath(), "-cp", System.getProperty("java.class.path"),
+                StatisticsStressTest.class.getName(), COUNT, String.valueOf(threads), String.valueOf(games))
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        int[] expected = null;
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(counter.getInputStream()))) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                System.out.println(line);
+                if (line.startsWith(TOTALS)) {
+                    expected = parse(line.substring(TOTALS.length()));
+                }
+            }
+        }
+        if (counter.waitFor() != 0 || expected == null) {
+            System.exit(1);
+        }
+        System.setProperty("user.home", home.getPath());
+        if (!check("After restart:", StatisticsHandler.getInstance().getCurrentStats(), expected)) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * This method is run in the new JVM. It counts games and moves on many threads and checks the totals.
+     * @param threads The number of threads.
+     * @param games The number of games every thread counts.
+     */
+    private static void count(int threads, int games) throws InterruptedException {
+        StatisticsHandler statistics = StatisticsHandler.getInstance();
+        int[] expected = new int[5];
+        Object lock = new Object();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> {
+                int[] counted = new int[5];
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int game = 0; game < games; game++) {
+                    int moves = 4 + random.nextInt(18);
+                    for (int move = 0; move < moves; move++) {
+                        statistics.addMove(random.nextInt(7));
+                        counted[4]++;
+                        if (random.nextInt(10) == 0) {
+                            statistics.removeMove();
+                            counted[4]--;
+                        }
+                    }
+                    int victoryState = random.nextInt(3);
+                    statistics.addGame(victoryState);
+                    counted[0]++;
+                    counted[1 + victoryState]++;
+                }
+                synchronized (lock) {
+                    for (int j = 0; j < counted.length; j++) {
+                        expected[j] += counted[j];
+                    }
+                }
+                done.countDown();
+            }, "statistics-" + i);
+            thread.start();
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder reads = new LongAdder();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                statistics.getCurrentStats().getRating();
+                reads.increment();
+            }
+        }, "statistics-reader");
+        reader.start();
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        running.set(false);
+        reader.join();
+
+        System.out.println("Threads:        " + threads + ", " + games + " games each");
+        System.out.println(String.format("Counted:        %d games, %d moves in %.2f s (%.0f updates/s)",
+                expected[0], expected[4], elapsed, (expected[0] + expected[4]) / elapsed));
+        System.out.println("Reads:          " + reads.sum() + " snapshots while counting");
+        if (!check("In memory:    ", statistics.getCurrentStats(), expected)) {
+            System.exit(1);
+        }
+        System.out.println(TOTALS + join(expected));
+    }
+
+    /**
+     * This method is used to compare statistics with the expected totals and print the result.
+     * @param label The label of the line.
+     * @param stats The statistics.
+     * @param expected The expected games played, won, lost, drawn and moves made.
+     * @return A boolean indicating whether the statistics hold exactly the expected totals.
+     */
+    private static boolean check(String label, PlayerStatistics stats, int[] expected) {
+        int[] actual = {stats.getGamesPlayed(), stats.getGamesWon(), stats.getGamesLost(), stats.getGamesDrawn(), stats.getMovesMade()};
+        boolean exact = Arrays.equals(actual, expected);
+        System.out.println(label + " " + (exact ? "exact" : "WRONG") + " - played " + actual[0] + ", won " + actual[1]
+                + ", lost " + actual[2] + ", drawn " + actual[3] + ", moves " + actual[4]
+                + (exact ? "" : " (expected " + join(expected) + ")"));
+        return exact;
+    }
+
+    /**
+     * This method is used to read totals joined with commas.
+     * @param totals The joined totals.
+     * @return The totals.
+     */
+    private static int[] parse(String totals) {
+        String[] values = totals.split(",");
+        int[] parsed = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            parsed[i] = Integer.parseInt(values[i]);
+        }
+        return parsed;
+    }
+
+    /**
+     * This method is used to join totals with commas.
+     * @param values The totals.
+     * @return The joined totals.
+     */
+    private static String join(int[] values) {
+        StringBuilder builder = new StringBuilder();
+        for (int value : values) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
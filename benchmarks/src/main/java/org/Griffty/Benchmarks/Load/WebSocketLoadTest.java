@@ -0,0 +1,95 @@
+package org.Griffty.Benchmarks.Load;
+
+import org.Griffty.Network.GameSessionManager;
+import org.Griffty.Network.LatencyHistogram;
+import org.Griffty.Network.WebSocketServer;
+import org.Griffty.Util.GameExecutors;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is a load test for the WebSocket endpoint of the game server.
+ * It starts a server in the same JVM and connects simulated players to it through real WebSocket connections,
+ * two to a game, which keep playing for a fixed time. Then it reports the messages per second,
+ * the round trip times of the moves and the error rates.
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar org.Griffty.Benchmarks.Load.WebSocketLoadTest [players] [seconds] [think ms] [random | ai]}
+ * <p>
+ * The players run on a few shared threads, so the test measures the server and the WebSocket container
+ * rather than the threads of the clients.
+ */
+public class WebSocketLoadTest {
+    private static final int DEFAULT_PLAYERS = 1_000;
+    private static final int DEFAULT_SECONDS = 30;
+    private static final long DEFAULT_THINK_TIME = 100;
+    private static final long TIMEOUT_SECONDS = 120;
+
+    /**
+     * The main method of the load test.
+     * @param args The number of players, the number of seconds to play, the think time in milliseconds and the strategy of the players.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PLAYERS;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        long thinkTime = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_THINK_TIME;
+        String strategy = args.length > 3 ? args[3] : SimulatedPlayer.RANDOM;
+        // Players are paired into games, an odd one out would wait for an opponent forever
+        players += players % 2;
+
+        GameSessionManager manager = GameSessionManager.getInstance();
+        manager.setGameExecutor(GameExecutors.newGameExecutor(GameExecutors.VIRTUAL));
+        manager.setHosting(true);
+        WebSocketServer server = WebSocketServer.getInstance();
+        String address = "ws://localhost:" + server.getPort() + "/connect-four/server?" + GameSessionManager.GAME_PARAMETER + "=load-";
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "simulated-player");
+            thread.setDaemon(true);
+            return thread;
+        });
+        SimulatedPlayer.Stats stats = new SimulatedPlayer.Stats();
+        CountDownLatch finished = new CountDownLatch(players);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        for (int player = 0; player < players; player++) {
+            new SimulatedPlayer(stats, scheduler, thinkTime, strategy, deadline, finished).connect(URI.create(address + player / 2));
+        }
+        long connectMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        boolean done = finished.await(seconds + TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long moves = stats.moves.sum();
+        LatencyHistogram roundTrip = stats.roundTrip;
+
+        System.out.println("Players:               " + players + " in " + players / 2 + " games (connected in " + connectMillis + " ms)");
+        System.out.println("Think time:            " + thinkTime + " ms, " + strategy + " moves");
+        System.out.println("Games finished:        " + stats.games.sum() / 2);
+        System.out.println("Messages received:     " + stats.received.sum() + String.format(" (%.0f/s)", stats.received.sum() / elapsed));
+        System.out.println("Messages sent:         " + stats.sent.sum() + String.format(" (%.0f/s)", stats.sent.sum() / elapsed));
+        System.out.println("Moves:                 " + moves + String.format(" (%.0f/s)", moves / elapsed));
+        System.out.println(String.format("Move round trip:       p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms",
+                roundTrip.getPercentileMillis(50), roundTrip.getPercentileMillis(90),
+                roundTrip.getPercentileMillis(99), roundTrip.getPercentileMillis(100)));
+        System.out.println(String.format("Failed connections:    %d (%.2f%%)", stats.connectErrors.sum(), percent(stats.connectErrors.sum(), players)));
+        System.out.println(String.format("Dropped players:       %d (%.2f%%)", stats.dropped.sum(), percent(stats.dropped.sum(), players)));
+        System.out.println(String.format("Rejected moves:        %d (%.2f%%)", stats.wrongInputs.sum(), percent(stats.wrongInputs.sum(), moves)));
+        if (!done) {
+            System.out.println("Players still connected after " + TIMEOUT_SECONDS + " s: " + finished.getCount());
+        }
+        System.exit(done && stats.connectErrors.sum() + stats.dropped.sum() + stats.wrongInputs.sum() == 0 ? 0 : 1);
+    }
+
+    /**
+     * This method is used to express a count as a share of a total.
+     * @param count The count.
+     * @param total The total.
+     * @return The percentage, or 0 if the total is 0.
+     */
+    private static double percent(long count, long total) {
+        return total == 0 ? 0 : 100.0 * count / total;
+    }
+}
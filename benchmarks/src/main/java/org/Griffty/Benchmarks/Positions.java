@@ -0,0 +1,77 @@
+package org.Griffty.Benchmarks;
+
+import org.Griffty.Benchmarks.Baseline.ArrayBoard;
+import org.Griffty.Board;
+
+/**
+ * This class holds the fixed corpus of positions the benchmarks run on.
+ * Every position is a sequence of columns, played in turn by red and yellow, with red moving first.
+ * None of them is won or full.
+ */
+public final class Positions {
+    /**
+     * An empty board.
+     */
+    public static final String EMPTY = "";
+    /**
+     * A position from the opening, with most of the columns still empty.
+     */
+    public static final String OPENING = "3";
+    /**
+     * A position from the middle of the game, with threats on both sides.
+     */
+    public static final String MIDDLE_GAME = "334224155";
+    /**
+     * A position from the end of the game, with more than half of the board filled.
+     */
+    public static final String END_GAME = "3332224441155506666611";
+
+    private Positions() {
+    }
+
+    /**
+     * Returns the position with the given name, used as a JMH parameter.
+     * @param name One of "empty", "opening", "middle" and "end".
+     * @return The moves of the position.
+     */
+    public static String byName(String name) {
+        switch (name) {
+            case "empty":
+                return EMPTY;
+            case "opening":
+                return OPENING;
+            case "middle":
+                return MIDDLE_GAME;
+            case "end":
+                return END_GAME;
+            default:
+                throw new IllegalArgumentException("Unknown position: " + name);
+        }
+    }
+
+    /**
+     * Plays a sequence of moves on a new board.
+     * @param moves The columns of the moves.
+     * @return The board after the moves.
+     */
+    public static Board board(String moves) {
+        Board board = new Board();
+        for (int i = 0; i < moves.length(); i++) {
+            board.putToken(moves.charAt(i) - '0', i % 2 + 1);
+        }
+        return board;
+    }
+
+    /**
+     * Plays a sequence of moves on a new array board.
+     * @param moves The columns of the moves.
+     * @return The array board after the moves.
+     */
+    public static ArrayBoard arrayBoard(String moves) {
+        ArrayBoard board = new ArrayBoard();
+        for (int i = 0; i < moves.length(); i++) {
+            board.putToken(moves.charAt(i) - '0', i % 2 + 1);
+        }
+        return board;
+    }
+}
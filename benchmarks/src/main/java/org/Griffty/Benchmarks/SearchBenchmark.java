@@ -0,0 +1,64 @@
+package org.Griffty.Benchmarks;
+
+import org.Griffty.AI.AIPredictor;
+import org.Griffty.Benchmarks.Baseline.ArrayAIPredictor;
+import org.Griffty.Benchmarks.Baseline.ArrayBoard;
+import org.Griffty.Board;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures a full search of the AI at every difficulty over the position corpus.
+ * The depth follows the game: difficulty n searches 2n plies.
+ * <p>
+ * A new AI is made before every search, so no search profits from the transposition table of the one before.
+ * The old {@link ArrayAIPredictor} searches to the same depth as the baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+    @Param({"1", "2", "3", "4"})
+    public int difficulty;
+
+    @Param({"empty", "opening", "middle", "end"})
+    public String position;
+
+    private Board board;
+    private ArrayBoard arrayBoard;
+    private AIPredictor ai;
+    private ArrayAIPredictor arrayAi;
+
+    /**
+     * Sets up the boards on the position.
+     */
+    @Setup(Level.Trial)
+    public void setUpBoards() {
+        String moves = Positions.byName(position);
+        board = Positions.board(moves);
+        arrayBoard = Positions.arrayBoard(moves);
+    }
+
+    /**
+     * Makes a new AI for every search. The transposition table is allocated here, outside of the measurement.
+     */
+    @Setup(Level.Invocation)
+    public void setUpAi() {
+        ai = new AIPredictor(difficulty * 2, AIPredictor.DEFAULT_TABLE_SIZE_MB, null);
+        arrayAi = new ArrayAIPredictor(difficulty * 2);
+    }
+
+    @Benchmark
+    public int makeMove() {
+        return ai.makeMove(board);
+    }
+
+    @Benchmark
+    public int makeMoveArray() {
+        return arrayAi.makeMove(arrayBoard);
+    }
+}
@@ -2,34 +2,263 @@ package org.Griffty.AI;
 
 import org.Griffty.Board;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.Griffty.AI.TranspositionTable.*;
+
 /**
  * This class is responsible for predicting the AI's moves in the game.
+ * <p>
+ * When it is given a {@link ForkJoinPool}, the moves of the AI are searched in parallel and, for every one of them,
+ * the replies of the opponent are searched the Young Brothers Wait way: the first reply is searched alone and the
+ * others are then searched in parallel with the bound it gives. All workers share one transposition table.
+ * Every move of the AI is still searched with a full window, so the parallel search picks the same move as the serial one.
  */
 public class AIPredictor {
+    /**
+     * The default size of the transposition table in megabytes.
+     */
+    public static final int DEFAULT_TABLE_SIZE_MB = 16;
+    private static final long MAXIMIZING_KEY = 1L << 63;
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+    private static final int[] CENTER_ORDER = {3, 2, 4, 1, 5, 0, 6};
+
     private final int depth;
+    private final int tableSizeMb;
+    private final TranspositionTable table;
+    private final ForkJoinPool pool;
+    private OpeningBook book;
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder cutoffs = new LongAdder();
+    private final LongAdder firstMoveCutoffs = new LongAdder();
+    private Searcher serialSearcher;
+    private boolean timeBounded;
+    private long deadline;
+    private volatile boolean aborted;
+    private int lastDepth;
+    private long lastNodes;
+    private long lastCutoffs;
+    private long lastFirstMoveCutoffs;
 
     /**
      * Constructor for the AIPredictor class.
      * @param depth The depth of the game tree to explore for each move.
      */
     public AIPredictor(int depth) {
+        this(depth, DEFAULT_TABLE_SIZE_MB);
+    }
+
+    /**
+     * Constructor for the AIPredictor class.
+     * @param depth The depth of the game tree to explore for each move.
+     * @param tableSizeMb The size of the transposition table in megabytes.
+     */
+    public AIPredictor(int depth, int tableSizeMb) {
+        this(depth, tableSizeMb, null);
+    }
+
+    /**
+     * Constructor for the AIPredictor class.
+     * @param depth The depth of the game tree to explore for each move.
+     * @param tableSizeMb The size of the transposition table in megabytes.
+     * @param pool The pool to search in parallel on, or null to search on the calling thread.
+     */
+    public AIPredictor(int depth, int tableSizeMb, ForkJoinPool pool) {
         this.depth = depth;
+        this.tableSizeMb = tableSizeMb;
+        this.table = new TranspositionTable(tableSizeMb);
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the opening book to take moves from before searching.
+     * @param book The opening book, or null to always search.
+     */
+    public void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * Looks the position up in the opening book.
+     * @param board The current game board.
+     * @return The book move, or -1 if there is no book or the position is not in it.
+     */
+    private int bookMove(Board board) {
+        if (book == null) {
+            return -1;
+        }
+        Solver.Solution solution = book.lookup(board, 2);
+        if (solution == null) {
+            return -1;
+        }
+        lastDepth = 0;
+        lastNodes = 0;
+        lastCutoffs = 0;
+        lastFirstMoveCutoffs = 0;
+        return solution.getMove();
     }
 
     /**
      * Makes the best move for the AI.
+     * The opening book is used instead of searching when it has the position.
      * @param board The current game board.
      * @return The column number of the best move.
      */
     public int makeMove(Board board) {
-        Board tempBoard = new Board(board.getCells());
+        int bookMove = bookMove(board);
+        if (bookMove >= 0) {
+            return bookMove;
+        }
+        Board tempBoard = new Board(board);
+        startSearch();
+        int bestMove = searchRoot(tempBoard, depth);
+        lastDepth = depth;
+        finishSearch();
+        return bestMove;
+    }
+
+    /**
+     * Makes the best move for the AI within a time budget.
+     * The game tree is searched one level deeper at a time, up to the depth of this predictor.
+     * When the budget runs out, the unfinished level is dropped and the move of the last finished level is returned.
+     * The first level is always finished, so a move is returned even if the budget is already spent.
+     * The opening book is used instead of searching when it has the position.
+     * @param board The current game board.
+     * @param budget The time the search may take.
+     * @return The column number of the best move.
+     */
+    public int makeMove(Board board, Duration budget) {
+        int bookMove = bookMove(board);
+        if (bookMove >= 0) {
+            return bookMove;
+        }
+        Board tempBoard = new Board(board);
+        startSearch();
+        int bestMove = searchRoot(tempBoard, 0);
+        lastDepth = 0;
+        deadline = System.nanoTime() + budget.toNanos();
+        timeBounded = true;
+        for (int currentDepth = 1; currentDepth <= depth; currentDepth++) {
+            int move = searchRoot(tempBoard, currentDepth);
+            if (aborted) {
+                break;
+            }
+            bestMove = move;
+            lastDepth = currentDepth;
+        }
+        finishSearch();
+        return bestMove;
+    }
+
+    /**
+     * Returns the depth the last search reached.
+     * For {@link #makeMove(Board, Duration)} this is the depth of the last finished level.
+     * @return The depth of the last search.
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * Returns the number of positions visited by the last search, on all workers.
+     * @return The number of nodes of the last search.
+     */
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    /**
+     * Returns the number of positions of the last search where a move was good enough to skip the remaining moves.
+     * @return The number of cutoffs of the last search.
+     */
+    public long getLastCutoffs() {
+        return lastCutoffs;
+    }
+
+    /**
+     * Returns the number of cutoffs of the last search made by the first move tried.
+     * Divided by {@link #getLastCutoffs()}, it tells how good the move ordering is.
+     * @return The number of first move cutoffs of the last search.
+     */
+    public long getLastFirstMoveCutoffs() {
+        return lastFirstMoveCutoffs;
+    }
+
+    /**
+     * Searches the board to the full depth once on the calling thread and once on the pool, each time with an empty
+     * transposition table, and compares them. Use it to pick the size of the pool.
+     * @param board The game board to search.
+     * @return The timings of both searches.
+     * @throws IllegalStateException if this predictor has no pool.
+     */
+    public SpeedupReport measureSpeedup(Board board) {
+        if (pool == null) {
+            throw new IllegalStateException("Predictor has no pool to measure");
+        }
+        AIPredictor serial = new AIPredictor(depth, tableSizeMb, null);
+        long serialStart = System.nanoTime();
+        int serialMove = serial.makeMove(board);
+        long serialNanos = System.nanoTime() - serialStart;
+
+        table.clear();
+        long parallelStart = System.nanoTime();
+        int parallelMove = makeMove(board);
+        long parallelNanos = System.nanoTime() - parallelStart;
+        return new SpeedupReport(pool.getParallelism(), serialNanos, serial.getLastNodes(), parallelNanos, getLastNodes(), serialMove == parallelMove);
+    }
+
+    /**
+     * Resets the state shared by all workers before a new search.
+     */
+    private void startSearch() {
+        table.nextGeneration();
+        nodes.reset();
+        cutoffs.reset();
+        firstMoveCutoffs.reset();
+        timeBounded = false;
+        aborted = false;
+        serialSearcher = null;
+    }
+
+    /**
+     * Collects the counters of all workers after a search.
+     */
+    private void finishSearch() {
+        lastNodes = nodes.sum();
+        lastCutoffs = cutoffs.sum();
+        lastFirstMoveCutoffs = firstMoveCutoffs.sum();
+    }
+
+    /**
+     * Scores every move of the AI and picks the best one.
+     * @param board The current game board. It is left unchanged.
+     * @param depth The depth of the game tree to explore after each move.
+     * @return The column number of the best move, or -1 if the search was aborted.
+     */
+    private int searchRoot(Board board, int depth) {
+        if (pool != null) {
+            return pool.invoke(new RootTask(board, depth));
+        }
+        if (serialSearcher == null) {
+            serialSearcher = new Searcher(board);
+        }
+        Searcher searcher = serialSearcher;
         int bestMove = -1;
         int bestValue = Integer.MIN_VALUE;
 
-        for (int col = 0; col < tempBoard.getColumns(); col++) {
-            if (tempBoard.putToken(col, 2)) {
-                int moveValue = minimax(tempBoard, depth, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
-                tempBoard.removeToken(col);
+        for (int col = 0; col < board.getColumns(); col++) {
+            if (board.putToken(col, 2)) {
+                int moveValue = searcher.minimax(depth, 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+                board.removeToken(col);
+                if (aborted) {
+                    break;
+                }
 
                 if (moveValue > bestValue) {
                     bestValue = moveValue;
@@ -37,145 +266,330 @@ public class AIPredictor {
                 }
             }
         }
-        return bestMove;
+        searcher.finish();
+        return aborted ? -1 : bestMove;
     }
 
     /**
-     * Implements the minimax algorithm to find the best move.
-     * @param board The current game board.
-     * @param depth The depth of the game tree to explore.
-     * @param alpha The best value that the maximizer currently can guarantee at that level or above.
-     * @param beta The best value that the minimizer currently can guarantee at that level or above.
-     * @param maximizingPlayer A boolean representing whether the current player is the maximizing player.
-     * @return The best score that can be achieved.
-     */
-    private int minimax(Board board, int depth, int alpha, int beta, boolean maximizingPlayer) {
-        if (depth == 0 || board.checkWin(false) > 0) {
-            return evaluate(board);
-        }
-        if (maximizingPlayer) {
-            int maxEval = Integer.MIN_VALUE;
-            for (int col = 0; col < board.getColumns(); col++) {
-                if (board.putToken(col, 2)) {
-                    int eval = minimax(board, depth - 1, alpha, beta, false);
-                    board.removeToken(col);
-                    maxEval = Math.max(maxEval, eval);
-                    alpha = Math.max(alpha, eval);
+     * This class searches one board on one thread.
+     * It keeps the per-thread part of the search state: the counters and the move ordering heuristics.
+     * <p>
+     * Moves are tried in this order: the best move stored in the transposition table (from an earlier level of
+     * iterative deepening or another branch), the two killer moves of the ply, then the other moves by their history
+     * score. Moves with equal scores are tried from the center out, since the center columns are usually the best.
+     */
+    private class Searcher {
+        private static final int MAX_PLY = Board.ROWS * Board.COLUMNS + 1;
+        private static final int HISTORY_LIMIT = 1 << 24;
+
+        private final Board board;
+        private final int[][] moves = new int[MAX_PLY][Board.COLUMNS];
+        private final int[][] scores = new int[MAX_PLY][Board.COLUMNS];
+        private final int[][] killers = new int[MAX_PLY][2];
+        private final int[][] history = new int[2][Board.COLUMNS * Board.COLUMN_BITS];
+        private long visited;
+        private long cutoffCount;
+        private long firstMoveCutoffCount;
+        private int nodesUntilDeadlineCheck = DEADLINE_CHECK_INTERVAL;
+
+        /**
+         * Constructor for the Searcher class.
+         * @param board The board to search. It is changed during the search and restored afterwards.
+         */
+        private Searcher(Board board) {
+            this.board = board;
+            for (int[] plyKillers : killers) {
+                Arrays.fill(plyKillers, NO_MOVE);
+            }
+        }
+
+        /**
+         * Adds the counters of this searcher to the search totals.
+         */
+        private void finish() {
+            nodes.add(visited);
+            cutoffs.add(cutoffCount);
+            firstMoveCutoffs.add(firstMoveCutoffCount);
+            visited = 0;
+            cutoffCount = 0;
+            firstMoveCutoffCount = 0;
+        }
+
+        /**
+         * Checks whether the search ran out of time.
+         * The clock is only read every {@link #DEADLINE_CHECK_INTERVAL} nodes.
+         * @return true if the search has to stop.
+         */
+        private boolean outOfTime() {
+            if (timeBounded && --nodesUntilDeadlineCheck <= 0) {
+                nodesUntilDeadlineCheck = DEADLINE_CHECK_INTERVAL;
+                if (System.nanoTime() - deadline > 0) {
+                    aborted = true;
+                }
+            }
+            return aborted;
+        }
+
+        /**
+         * Fills the move list of a ply with the legal moves, best first.
+         * @param ply The ply to order the moves of.
+         * @param side The side to move.
+         * @param tableMove The best move stored in the transposition table, or {@link TranspositionTable#NO_MOVE}.
+         * @return The number of legal moves.
+         */
+        private int orderMoves(int ply, int side, int tableMove) {
+            int[] plyMoves = moves[ply];
+            int[] plyScores = scores[ply];
+            int[] plyKillers = killers[ply];
+            int count = 0;
+            for (int col : CENTER_ORDER) {
+                int height = board.getHeight(col);
+                if (height == Board.ROWS) {
+                    continue;
+                }
+                int score;
+                if (col == tableMove) {
+                    score = Integer.MAX_VALUE;
+                } else if (col == plyKillers[0]) {
+                    score = Integer.MAX_VALUE - 1;
+                } else if (col == plyKillers[1]) {
+                    score = Integer.MAX_VALUE - 2;
+                } else {
+                    score = history[side - 1][col * Board.COLUMN_BITS + height];
+                }
+                int i = count++;
+                while (i > 0 && plyScores[i - 1] < score) {
+                    plyMoves[i] = plyMoves[i - 1];
+                    plyScores[i] = plyScores[i - 1];
+                    i--;
+                }
+                plyMoves[i] = col;
+                plyScores[i] = score;
+            }
+            return count;
+        }
+
+        /**
+         * Remembers a move that caused a cutoff, so that it is tried early in sibling positions.
+         * @param ply The ply of the move.
+         * @param side The side that made the move.
+         * @param col The column of the move.
+         * @param depth The depth that was left to search.
+         * @param index The position of the move in the move list.
+         */
+        private void recordCutoff(int ply, int side, int col, int depth, int index) {
+            cutoffCount++;
+            if (index == 0) {
+                firstMoveCutoffCount++;
+            }
+            int[] plyKillers = killers[ply];
+            if (plyKillers[0] != col) {
+                plyKillers[1] = plyKillers[0];
+                plyKillers[0] = col;
+            }
+            int[] sideHistory = history[side - 1];
+            int cell = col * Board.COLUMN_BITS + board.getHeight(col);
+            sideHistory[cell] += depth * depth;
+            if (sideHistory[cell] > HISTORY_LIMIT) {
+                for (int i = 0; i < sideHistory.length; i++) {
+                    sideHistory[i] /= 2;
+                }
+            }
+        }
+
+        /**
+         * Implements the minimax algorithm to find the best move.
+         * Results are kept in the transposition table. A stored result is only reused when it was searched
+         * to the same depth: a position always has the same number of tokens, so within one search
+         * every transposition of it is reached with the same remaining depth anyway.
+         * @param depth The depth of the game tree to explore.
+         * @param ply The number of moves made since the root of the search.
+         * @param alpha The best value that the maximizer currently can guarantee at that level or above.
+         * @param beta The best value that the minimizer currently can guarantee at that level or above.
+         * @param maximizingPlayer A boolean representing whether the current player is the maximizing player.
+         * @return The best score that can be achieved.
+         */
+        private int minimax(int depth, int ply, int alpha, int beta, boolean maximizingPlayer) {
+            visited++;
+            if (outOfTime()) {
+                return 0;
+            }
+            if (depth == 0 || board.lastMoveWins() || board.isFull()) {
+                return evaluate(board);
+            }
+            int alphaOrig = alpha;
+            int betaOrig = beta;
+            long key = board.getKey() | (maximizingPlayer ? MAXIMIZING_KEY : 0);
+            long entry = table.probe(key);
+            int tableMove = NO_MOVE;
+            if (entry != 0) {
+                tableMove = move(entry);
+                if (TranspositionTable.depth(entry) == depth) {
+                    int value = value(entry);
+                    switch (bound(entry)) {
+                        case EXACT -> {
+                            return value;
+                        }
+                        case LOWER_BOUND -> alpha = Math.max(alpha, value);
+                        case UPPER_BOUND -> beta = Math.min(beta, value);
+                    }
                     if (beta <= alpha) {
-                        break;
+                        return value;
                     }
                 }
             }
-            return maxEval;
-        } else {
-            int minEval = Integer.MAX_VALUE;
-            for (int col = 0; col < board.getColumns(); col++) {
-                if (board.putToken(col, 1)) {
-                    int eval = minimax(board, depth - 1, alpha, beta, true);
-                    board.removeToken(col);
-                    minEval = Math.min(minEval, eval);
+            int side = maximizingPlayer ? 2 : 1;
+            int count = orderMoves(ply, side, tableMove);
+            int[] plyMoves = moves[ply];
+            int bestMove = NO_MOVE;
+            int bestEval = maximizingPlayer ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                int col = plyMoves[i];
+                board.putToken(col, side);
+                int eval = minimax(depth - 1, ply + 1, alpha, beta, !maximizingPlayer);
+                board.removeToken(col);
+                if (maximizingPlayer) {
+                    if (eval > bestEval) {
+                        bestEval = eval;
+                        bestMove = col;
+                    }
+                    alpha = Math.max(alpha, eval);
+                } else {
+                    if (eval < bestEval) {
+                        bestEval = eval;
+                        bestMove = col;
+                    }
                     beta = Math.min(beta, eval);
-                    if (beta <= alpha) {
-                        break;
+                }
+                if (beta <= alpha) {
+                    if (!aborted) {
+                        recordCutoff(ply, side, col, depth, i);
                     }
+                    break;
                 }
             }
-            return minEval;
+            if (aborted) {
+                return 0;
+            }
+            int bound = bestEval <= alphaOrig ? UPPER_BOUND : bestEval >= betaOrig ? LOWER_BOUND : EXACT;
+            table.store(key, bestEval, depth, bound, bestMove);
+            return bestEval;
         }
     }
 
     /**
-     * Evaluates the game board.
-     * @param board The current game board.
-     * @return The score of the board.
+     * This task scores every move of the AI in parallel and picks the best one.
+     * Ties go to the leftmost column, like in the serial search.
      */
-    public static int evaluate(Board board) {
-        int[][] cells = board.getCells();
-        int score = 0;
+    private class RootTask extends RecursiveTask<Integer> {
+        private final Board board;
+        private final int depth;
 
-        // Higher score for central pieces
-        for (int row = 0; row < 6; row++) {
-            if (cells[row][3] == 2) {
-                score += 3;
-            }
-            if (cells[row][4] == 2 || cells[row][6] == 2) {
-                score += 2;
-            }
+        /**
+         * Constructor for the RootTask class.
+         * @param board The current game board. It is not changed.
+         * @param depth The depth of the game tree to explore after each move.
+         */
+        private RootTask(Board board, int depth) {
+            this.board = board;
+            this.depth = depth;
         }
 
-        // Check horizontal lines
-        for (int row = 0; row < 6; row++) {
-            for (int col = 0; col < 4; col++) {
-                score += evaluateLine(cells[row][col], cells[row][col+1], cells[row][col+2], cells[row][col+3]);
+        @Override
+        protected Integer compute() {
+            List<MoveTask> tasks = new ArrayList<>();
+            for (int col = 0; col < board.getColumns(); col++) {
+                Board child = new Board(board);
+                if (child.putToken(col, 2)) {
+                    tasks.add(new MoveTask(child, col, depth));
+                }
             }
-        }
-
-        // Check vertical lines
-        for (int col = 0; col < 7; col++) {
-            for (int row = 0; row < 3; row++) {
-                score += evaluateLine(cells[row][col], cells[row+1][col], cells[row+2][col], cells[row+3][col]);
+            invokeAll(tasks);
+            int bestMove = -1;
+            int bestValue = Integer.MIN_VALUE;
+            for (MoveTask task : tasks) {
+                int moveValue = task.join();
+                if (moveValue > bestValue) {
+                    bestValue = moveValue;
+                    bestMove = task.col;
+                }
             }
+            return aborted ? -1 : bestMove;
         }
+    }
 
-        // Check diagonal
-        for (int row = 0; row < 3; row++) {
-            for (int col = 0; col < 4; col++) {
-                score += evaluateLine(cells[row][col], cells[row+1][col+1], cells[row+2][col+2], cells[row+3][col+3]);
-            }
+    /**
+     * This task scores one move of the AI with a full window.
+     * The first reply of the opponent is searched alone, the others in parallel with its score as the bound.
+     */
+    private class MoveTask extends RecursiveTask<Integer> {
+        private final Board board;
+        private final int col;
+        private final int depth;
+
+        /**
+         * Constructor for the MoveTask class.
+         * @param board The game board after the move of the AI.
+         * @param col The column the AI played.
+         * @param depth The depth of the game tree to explore.
+         */
+        private MoveTask(Board board, int col, int depth) {
+            this.board = board;
+            this.col = col;
+            this.depth = depth;
         }
 
-        // Check diagonal
-        for (int row = 3; row < 6; row++) {
-            for (int col = 0; col < 4; col++) {
-                score += evaluateLine(cells[row][col], cells[row-1][col+1], cells[row-2][col+2], cells[row-3][col+3]);
+        @Override
+        protected Integer compute() {
+            Searcher searcher = new Searcher(board);
+            if (depth == 0 || board.lastMoveWins() || board.isFull()) {
+                int value = searcher.minimax(depth, 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+                searcher.finish();
+                return value;
+            }
+            searcher.visited++;
+            int minEval = Integer.MAX_VALUE;
+            boolean eldest = true;
+            List<RecursiveTask<Integer>> brothers = new ArrayList<>();
+            for (int reply : CENTER_ORDER) {
+                if (!board.putToken(reply, 1)) {
+                    continue;
+                }
+                if (eldest) {
+                    minEval = searcher.minimax(depth - 1, 2, Integer.MIN_VALUE, Integer.MAX_VALUE, true);
+                    board.removeToken(reply);
+                    eldest = false;
+                    continue;
+                }
+                Board child = new Board(board);
+                board.removeToken(reply);
+                int bound = minEval;
+                brothers.add(new RecursiveTask<>() {
+                    @Override
+                    protected Integer compute() {
+                        Searcher brother = new Searcher(child);
+                        int value = brother.minimax(depth - 1, 2, Integer.MIN_VALUE, bound, true);
+                        brother.finish();
+                        return value;
+                    }
+                });
+            }
+            searcher.finish();
+            invokeAll(brothers);
+            for (RecursiveTask<Integer> brother : brothers) {
+                minEval = Math.min(minEval, brother.join());
             }
+            return minEval;
         }
-
-        return score;
     }
 
     /**
-     * Evaluates a line of four cells.
-     * @param a The first cell.
-     * @param b The second cell.
-     * @param c The third cell.
-     * @param d The fourth cell.
-     * @return The score of the line.
+     * Evaluates the game board.
+     * The score is kept up to date by the board itself, see {@link Board#getScore()}.
+     * @param board The current game board.
+     * @return The score of the board.
      */
-    private static int evaluateLine(int a, int b, int c, int d) {
-        int score = 0;
-
-        int botPieces = 0;
-        int opponentPieces = 0;
-        int empty = 0;
-        if (a == 2) botPieces++;
-        if (b == 2) botPieces++;
-        if (c == 2) botPieces++;
-        if (d == 2) botPieces++;
-        if (a == 1) opponentPieces++;
-        if (b == 1) opponentPieces++;
-        if (c == 1) opponentPieces++;
-        if (d == 1) opponentPieces++;
-        if (a == 0) empty++;
-        if (b == 0) empty++;
-        if (c == 0) empty++;
-        if (d == 0) empty++;
-
-        // Check for bots rows of tokens
-        if (botPieces == 4) {
-            score += 100000;
-        } else if (botPieces == 3 && empty == 1) {
-            score += 50;
-        } else if (botPieces == 2 && empty == 2) {
-            score += 10;
-        }
-
-        // Check for opponents rows of tokens
-        if (opponentPieces == 3 && empty == 1) {
-            score -= 300;
-        } else if (opponentPieces == 2 && empty == 2) {
-            score -= 10;
-        }
-        return score;
+    public static int evaluate(Board board) {
+        return board.getScore();
     }
-}
\ No newline at end of file
+}
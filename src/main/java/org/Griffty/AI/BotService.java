@@ -0,0 +1,259 @@
+package org.Griffty.AI;
+
+import com.google.gson.Gson;
+import org.Griffty.Board;
+import org.Griffty.Network.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class computes the moves of the bots that play against clients of the server.
+ * It uses the Singleton design pattern to ensure only one instance of this class is created.
+ * <p>
+ * The searches run on a fixed pool with one worker per processor and a bounded queue, so bots never take more
+ * than the processors of the server, however many games want a move. Every request has a time budget that starts
+ * when it is made: the time it waits in the queue is taken from its search, so a busy server makes the bots
+ * play weaker instead of slower. When the queue is full, the move is picked by a one-ply search on the calling thread.
+ * <p>
+ * Moves are looked up in the opening book first, by bots of the highest difficulty only since its moves are perfect,
+ * and then in a {@link MoveCache} shared by all games.
+ * A position that is already being searched for another game is not searched again, the second game waits for
+ * the same search. Only searches that reached the full depth of the difficulty are cached.
+ * <p>
+ * The bots play yellow (side 2), like the AI of the local game.
+ */
+public class BotService {
+    /**
+     * The highest difficulty of a bot. Difficulty n searches 2n plies, like the local AI.
+     */
+    public static final int MAX_DIFFICULTY = 4;
+    /**
+     * The time a bot may think about a move by default.
+     */
+    public static final Duration DEFAULT_BUDGET = Duration.ofSeconds(2);
+    /**
+     * The number of searches that can wait for a worker before moves are picked on the calling thread.
+     */
+    public static final int QUEUE_CAPACITY = 1_024;
+    private static final int TABLE_SIZE_MB = 4;
+    private static final int CACHE_SIZE_MB = 16;
+    private static BotService instance;
+
+    /**
+     * This method is used to get the instance of the BotService.
+     * If the instance does not exist, it creates a new one.
+     * @return The instance of the BotService.
+     */
+    public static synchronized BotService getInstance() {
+        if (instance == null) {
+            instance = new BotService();
+        }
+        return instance;
+    }
+
+    private final ThreadPoolExecutor workers;
+    private final ThreadLocal<AIPredictor[]> predictors = ThreadLocal.withInitial(() -> new AIPredictor[MAX_DIFFICULTY + 1]);
+    private final OpeningBook book = OpeningBook.openDefault();
+    private final MoveCache cache = new MoveCache(CACHE_SIZE_MB);
+    private final ConcurrentMap<Long, CompletableFuture<Integer>> searching = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder bookMoves = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder sharedSearches = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LatencyHistogram computeTime = new LatencyHistogram();
+
+    /**
+     * The constructor is private to prevent creating multiple instances.
+     * It starts one worker for every processor.
+     */
+    private BotService() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "bot-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * This method is used to ask a bot for its move.
+     * @param board The current game board. It is copied, so the game may go on changing it.
+     * @param difficulty The difficulty of the bot, from 1 to {@link #MAX_DIFFICULTY}.
+     * @param budget The time the bot may take, counted from now.
+     * @return The move of the bot, which completes once it is found.
+     */
+    public CompletableFuture<Integer> requestMove(Board board, int difficulty, Duration budget) {
+        requests.increment();
+        int level = Math.max(1, Math.min(difficulty, MAX_DIFFICULTY));
+        if (book != null && level == MAX_DIFFICULTY) {
+            Solver.Solution solution = book.lookup(board, 2);
+            if (solution != null) {
+                bookMoves.increment();
+                return CompletableFuture.completedFuture(solution.getMove());
+            }
+        }
+        long key = MoveCache.key(board.getKey(), level);
+        int cached = cache.probe(key);
+        if (cached >= 0) {
+            cacheHits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<Integer> move = new CompletableFuture<>();
+        CompletableFuture<Integer> running = searching.putIfAbsent(key, move);
+        if (running != null) {
+            sharedSearches.increment();
+            return running;
+        }
+        Board position = new Board(board);
+        long requested = System.nanoTime();
+        long deadline = requested + budget.toNanos();
+        try {
+            workers.execute(() -> search(position, level, key, requested, deadline, move));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            searching.remove(key, move);
+            move.complete(quickMove(position));
+        }
+        return move;
+    }
+
+    /**
+     * This method is used to get the number of searches waiting for a worker.
+     * @return The depth of the queue.
+     */
+    public int getQueueDepth() {
+        return workers.getQueue().size();
+    }
+
+    /**
+     * This method is used to write the metrics of the bots to a JSON file.
+     * @param path The path of the file.
+     */
+    public void exportMetrics(String path) {
+        try {
+            Files.write(Paths.get(path), new Gson().toJson(snapshot()).getBytes());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * This method is used to copy the metrics of the bots into an object that can be exported.
+     * @return The current metrics.
+     */
+    public Metrics snapshot() {
+        Metrics metrics = new Metrics();
+        metrics.workers = workers.getPoolSize();
+        metrics.busyWorkers = workers.getActiveCount();
+        metrics.queueDepth = workers.getQueue().size();
+        metrics.requests = requests.sum();
+        metrics.bookMoves = bookMoves.sum();
+        metrics.cacheHits = cacheHits.sum();
+        metrics.sharedSearches = sharedSearches.sum();
+        metrics.searches = computeTime.getCount();
+        metrics.rejected = rejected.sum();
+        metrics.waitTime = waitTime.snapshot();
+        metrics.computeTime = computeTime.snapshot();
+        return metrics;
+    }
+
+    /**
+     * This method is used to search a position on a worker, within what is left of its budget.
+     * @param board The position.
+     * @param difficulty The difficulty of the bot.
+     * @param key The key of the position in the cache.
+     * @param requested The time the move was requested in nanoseconds.
+     * @param deadline The time the move must be found by in nanoseconds.
+     * @param move Completed with the move.
+     */
+    private void search(Board board, int difficulty, long key, long requested, long deadline, CompletableFuture<Integer> move) {
+        long start = System.nanoTime();
+        waitTime.record(start - requested);
+        try {
+            AIPredictor predictor = predictor(difficulty);
+            int col = predictor.makeMove(board, Duration.ofNanos(Math.max(0, deadline - start)));
+            computeTime.record(System.nanoTime() - start);
+            if (predictor.getLastDepth() == difficulty * 2) {
+                cache.store(key, col);
+            }
+            move.complete(col);
+        } catch (RuntimeException e) {
+            move.completeExceptionally(e);
+        } finally {
+            searching.remove(key, move);
+        }
+    }
+
+    /**
+     * This method is used to get the predictor of the current worker for a difficulty.
+     * Every worker has its own predictors, because a predictor searches with a transposition table of its own.
+     * @param difficulty The difficulty of the bot.
+     * @return The predictor.
+     */
+    private AIPredictor predictor(int difficulty) {
+        AIPredictor[] workerPredictors = predictors.get();
+        if (workerPredictors[difficulty] == null) {
+            workerPredictors[difficulty] = new AIPredictor(difficulty * 2, TABLE_SIZE_MB);
+        }
+        return workerPredictors[difficulty];
+    }
+
+    /**
+     * This method is used to pick a move without a worker, when all of them are busy.
+     * It plays a winning move if there is one and otherwise the move with the best evaluation.
+     * @param board The position.
+     * @return The move.
+     */
+    private static int quickMove(Board board) {
+        int bestMove = -1;
+        int bestScore = Integer.MIN_VALUE;
+        for (int col = 0; col < Board.COLUMNS; col++) {
+            if (!board.putToken(col, 2)) {
+                continue;
+            }
+            boolean wins = board.lastMoveWins();
+            int score = AIPredictor.evaluate(board);
+            board.removeToken(col);
+            if (wins) {
+                return col;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = col;
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * This class holds the metrics of the bots at one moment, in the form they are exported as JSON.
+     */
+    public static class Metrics {
+        int workers;
+        int busyWorkers;
+        int queueDepth;
+        long requests;
+        long bookMoves;
+        long cacheHits;
+        long sharedSearches;
+        long searches;
+        long rejected;
+        LatencyHistogram.Snapshot waitTime;
+        LatencyHistogram.Snapshot computeTime;
+    }
+}
@@ -0,0 +1,86 @@
+package org.Griffty.AI;
+
+/**
+ * This class is a fixed-size cache of the moves the bots chose, shared by all games on the server.
+ * Games against bots often reach the same positions, above all in the opening, and a position that was
+ * searched for one game is answered from the cache for every other game.
+ * <p>
+ * Every entry takes two longs: the move and the key of the position with the difficulty xor-ed with it, like the
+ * entries of the {@link TranspositionTable}. The cache can be shared by all bot workers without locks.
+ * A slot written by two threads at once reads as empty, and a newer move simply replaces an older one in its slot.
+ */
+public class MoveCache {
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+    private static final long PRESENT = 1L << 8;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int indexMask;
+
+    /**
+     * Constructor for the MoveCache class.
+     * The number of entries is the largest power of two that fits in the given size.
+     * @param sizeMb The maximum size of the cache in megabytes.
+     */
+    public MoveCache(int sizeMb) {
+        if (sizeMb < 1) {
+            throw new IllegalArgumentException("Move cache size must be at least 1 MB");
+        }
+        long maxEntries = ((long) sizeMb << 20) / ENTRY_BYTES;
+        int size = Integer.highestOneBit((int) Math.min(maxEntries, 1 << 30));
+        keys = new long[size];
+        entries = new long[size];
+        indexMask = size - 1;
+    }
+
+    /**
+     * Looks up the move of a position.
+     * @param key The key of the position, see {@link #key(long, int)}.
+     * @return The move, or -1 if the position is not in the cache.
+     */
+    public int probe(long key) {
+        int index = index(key);
+        long entry = entries[index];
+        return (keys[index] ^ entry) == key && entry != 0 ? (int) (entry & 0xFF) : -1;
+    }
+
+    /**
+     * Stores the move of a position.
+     * @param key The key of the position, see {@link #key(long, int)}.
+     * @param move The move.
+     */
+    public void store(long key, int move) {
+        int index = index(key);
+        long entry = move | PRESENT;
+        entries[index] = entry;
+        keys[index] = key ^ entry;
+    }
+
+    /**
+     * Returns the number of entries the cache can hold.
+     * @return The number of entries.
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Combines the key of a position with the difficulty of the bot, since every difficulty plays its own moves.
+     * Board keys take fewer than 56 bits, so the difficulty fits above them.
+     * @param boardKey The key of the position, see {@link org.Griffty.Board#getKey()}.
+     * @param difficulty The difficulty of the bot.
+     * @return The key of the entry.
+     */
+    public static long key(long boardKey, int difficulty) {
+        return (long) difficulty << 56 | boardKey;
+    }
+
+    /**
+     * Picks the slot of a key. The key is mixed first because neighbouring positions differ in only a few bits.
+     * @param key The key of the position.
+     * @return The index of the slot.
+     */
+    private int index(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & indexMask;
+    }
+}
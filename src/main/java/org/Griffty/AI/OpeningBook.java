@@ -0,0 +1,172 @@
+package org.Griffty.AI;
+
+import org.Griffty.Board;
+import org.Griffty.Util.ProgramFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class gives the solved best move of opening positions without searching.
+ * <p>
+ * The book is a binary file made by {@link OpeningBookGenerator}: a header followed by entries sorted by position key,
+ * each holding the key, the best move and its score. A position and its mirror image share one entry.
+ * The file is memory-mapped and searched with a binary search, so lookups do not read the file into the heap
+ * and several processes on one machine share the same pages.
+ */
+public class OpeningBook {
+    /**
+     * The name of the book file in the program folder.
+     */
+    public static final String DEFAULT_FILE = "opening.book";
+    static final int MAGIC = 0x43344F42;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4 * Integer.BYTES;
+    static final int ENTRY_BYTES = Long.BYTES + 2;
+
+    private final MappedByteBuffer entries;
+    private final int plies;
+    private final int size;
+
+    /**
+     * Constructor for the OpeningBook class.
+     * @param entries The mapped book file.
+     * @param plies The number of tokens up to which the book has positions.
+     * @param size The number of entries.
+     */
+    private OpeningBook(MappedByteBuffer entries, int plies, int size) {
+        this.entries = entries;
+        this.plies = plies;
+        this.size = size;
+    }
+
+    /**
+     * Maps a book file.
+     * @param file The path of the book file.
+     * @return The opening book.
+     * @throws IOException if the file cannot be read or is not a book.
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            int plies = buffer.getInt(8);
+            int size = buffer.getInt(12);
+            if (buffer.limit() != HEADER_BYTES + (long) size * ENTRY_BYTES) {
+                throw new IOException("Opening book is truncated: " + file);
+            }
+            return new OpeningBook(buffer, plies, size);
+        }
+    }
+
+    /**
+     * Maps the book file from the program folder, if there is one.
+     * @return The opening book, or null if there is no usable book file.
+     */
+    public static OpeningBook openDefault() {
+        Path file = Paths.get(ProgramFolder.resolve(DEFAULT_FILE));
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return open(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Writes a book file.
+     * @param file The path of the book file.
+     * @param plies The number of tokens up to which the book has positions.
+     * @param keys The position keys, sorted in ascending order.
+     * @param moves The best move of every position.
+     * @param scores The score of every best move.
+     * @throws IOException if the file cannot be written.
+     */
+    static void write(Path file, int plies, long[] keys, byte[] moves, byte[] scores) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + keys.length * ENTRY_BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(plies).putInt(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            buffer.putLong(keys[i]).put(moves[i]).put(scores[i]);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Looks up the best move of a position.
+     * @param board The current game board.
+     * @param side The side to move.
+     * @return The best move and its score, or null if the position is not in the book.
+     */
+    public Solver.Solution lookup(Board board, int side) {
+        if (board.getMoveCount() >= plies) {
+            return null;
+        }
+        long key = Solver.key(board, side);
+        long mirrored = Solver.mirrorKey(key);
+        int index = find(Math.min(key, mirrored));
+        if (index < 0) {
+            return null;
+        }
+        int offset = HEADER_BYTES + index * ENTRY_BYTES + Long.BYTES;
+        int move = entries.get(offset);
+        int score = entries.get(offset + 1);
+        if (mirrored < key) {
+            move = Board.COLUMNS - 1 - move;
+        }
+        return new Solver.Solution(move, score, board.getMoveCount());
+    }
+
+    /**
+     * Finds an entry by binary search.
+     * @param key The key of the position.
+     * @return The index of the entry, or -1 if there is none.
+     */
+    private int find(long key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = entries.getLong(HEADER_BYTES + middle * ENTRY_BYTES);
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of tokens up to which the book has positions.
+     * @return The depth of the book in plies.
+     */
+    public int getPlies() {
+        return plies;
+    }
+
+    /**
+     * Returns the number of positions in the book.
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,94 @@
+package org.Griffty.AI;
+
+import org.Griffty.Board;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class builds an {@link OpeningBook} offline by solving opening positions.
+ * <p>
+ * The book holds every position with fewer tokens than the given number of plies in which the AI is to move,
+ * assuming the AI follows the book: the AI's side only plays the book move, the other side plays every move.
+ * Both the case where the AI moves first and the case where it moves second are covered.
+ * Solving the first positions takes a long time, so this is meant to be run once and the file shipped.
+ */
+public class OpeningBookGenerator {
+    private final int plies;
+    private final Solver solver;
+    private final Map<Long, Integer> entries = new HashMap<>();
+
+    /**
+     * Constructor for the OpeningBookGenerator class.
+     * @param plies The number of tokens up to which positions are solved.
+     * @param tableSizeMb The size of the solver's transposition table in megabytes.
+     */
+    public OpeningBookGenerator(int plies, int tableSizeMb) {
+        this.plies = plies;
+        this.solver = new Solver(tableSizeMb);
+    }
+
+    /**
+     * Solves the opening positions and writes the book.
+     * @param file The path of the book file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void generate(Path file) throws IOException {
+        Board board = new Board();
+        expand(board, 1, 1);
+        expand(board, 1, 2);
+
+        long[] keys = entries.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        byte[] moves = new byte[keys.length];
+        byte[] scores = new byte[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            int entry = entries.get(keys[i]);
+            moves[i] = (byte) (entry >> 8);
+            scores[i] = (byte) entry;
+        }
+        OpeningBook.write(file, plies, keys, moves, scores);
+        System.out.println("Opening book with " + keys.length + " positions written to " + file);
+    }
+
+    /**
+     * Walks the opening tree and solves the positions where the AI is to move.
+     * @param board The current game board. It is left unchanged.
+     * @param side The side to move.
+     * @param aiSide The side the AI plays.
+     */
+    private void expand(Board board, int side, int aiSide) {
+        if (board.getMoveCount() >= plies || board.lastMoveWins() || board.isFull()) {
+            return;
+        }
+        if (side != aiSide) {
+            for (int col = 0; col < Board.COLUMNS; col++) {
+                if (board.putToken(col, side)) {
+                    expand(board, 3 - side, aiSide);
+                    board.removeToken(col);
+                }
+            }
+            return;
+        }
+        long key = Solver.key(board, side);
+        long mirrored = Solver.mirrorKey(key);
+        long bookKey = Math.min(key, mirrored);
+        Integer entry = entries.get(bookKey);
+        int move;
+        if (entry == null) {
+            long start = System.nanoTime();
+            Solver.Solution solution = solver.solve(board, side);
+            move = solution.getMove();
+            int bookMove = mirrored < key ? Board.COLUMNS - 1 - move : move;
+            entries.put(bookKey, bookMove << 8 | (solution.getScore() & 0xFF));
+            System.out.printf("%d positions, ply %d: %s (%.1fs)%n", entries.size(), board.getMoveCount(), solution, (System.nanoTime() - start) / 1e9);
+        } else {
+            int bookMove = entry >> 8;
+            move = mirrored < key ? Board.COLUMNS - 1 - bookMove : bookMove;
+        }
+        board.putToken(move, side);
+        expand(board, 3 - side, aiSide);
+        board.removeToken(move);
+    }
+}
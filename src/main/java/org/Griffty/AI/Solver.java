@@ -0,0 +1,463 @@
+package org.Griffty.AI;
+
+import org.Griffty.Board;
+
+import java.time.Duration;
+
+import static org.Griffty.AI.TranspositionTable.*;
+import static org.Griffty.Board.COLUMNS;
+import static org.Griffty.Board.COLUMN_BITS;
+import static org.Griffty.Board.ROWS;
+
+/**
+ * This class solves Connect Four positions exactly.
+ * It finds out whether the side to move wins, loses or draws with perfect play, and how fast.
+ * <p>
+ * A position is described by two masks in the {@link Board} bit layout: the tokens of the side to move and all tokens.
+ * The search is a negamax with alpha-beta pruning, called with null windows to narrow the score down by binary search.
+ * Moves that lose at once are never searched, the others are tried by how many new winning cells they make,
+ * and bounds of searched positions are kept in a {@link TranspositionTable}.
+ * <p>
+ * Scores follow the usual convention: 0 is a draw, a positive score is a win of the side to move and a negative one
+ * a loss. The sooner the game is won, the higher the score: winning with the last token of the board scores 1,
+ * winning with your fourth token scores 18.
+ */
+public class Solver {
+    /**
+     * The default size of the transposition table in megabytes.
+     */
+    public static final int DEFAULT_TABLE_SIZE_MB = 64;
+    private static final int CELLS = ROWS * COLUMNS;
+    private static final int[] CENTER_ORDER = {3, 2, 4, 1, 5, 0, 6};
+    private static final long BOTTOM_ROW = bottomRow();
+    private static final long BOARD_MASK = BOTTOM_ROW * ((1L << ROWS) - 1);
+    private static final int DEADLINE_CHECK_INTERVAL = 4_096;
+
+    private final TranspositionTable table;
+    private final long[][] sortedMoves = new long[CELLS + 1][COLUMNS];
+    private final int[][] sortedScores = new int[CELLS + 1][COLUMNS];
+    private long nodes;
+    private boolean timeBounded;
+    private long deadline;
+    private int nodesUntilDeadlineCheck;
+    private boolean aborted;
+
+    /**
+     * Constructor for the Solver class.
+     */
+    public Solver() {
+        this(DEFAULT_TABLE_SIZE_MB);
+    }
+
+    /**
+     * Constructor for the Solver class.
+     * @param tableSizeMb The size of the transposition table in megabytes.
+     */
+    public Solver(int tableSizeMb) {
+        table = new TranspositionTable(tableSizeMb);
+    }
+
+    /**
+     * Finds the best move of a side and the outcome it leads to.
+     * Among moves with the same score, the one closest to the center is picked.
+     * @param board The current game board. It must not be full or already won.
+     * @param side The side to move.
+     * @return The best move and its score.
+     */
+    public Solution solve(Board board, int side) {
+        timeBounded = false;
+        aborted = false;
+        return solveRoot(board, side);
+    }
+
+    /**
+     * Finds the best move of a side and the outcome it leads to within a time budget.
+     * The bounds found before the budget ran out stay in the transposition table, so a later call goes faster.
+     * @param board The current game board. It must not be full or already won.
+     * @param side The side to move.
+     * @param budget The time the solve may take.
+     * @return The best move and its score, or null if the position could not be solved in time.
+     */
+    public Solution solve(Board board, int side, Duration budget) {
+        timeBounded = true;
+        aborted = false;
+        deadline = System.nanoTime() + budget.toNanos();
+        nodesUntilDeadlineCheck = DEADLINE_CHECK_INTERVAL;
+        Solution solution = solveRoot(board, side);
+        return aborted ? null : solution;
+    }
+
+    /**
+     * Solves every move of the side to move and picks the best one.
+     * @param board The current game board.
+     * @param side The side to move.
+     * @return The best move and its score, which mean nothing if the solve ran out of time.
+     */
+    private Solution solveRoot(Board board, int side) {
+        long current = board.getTokens(side);
+        long mask = board.getTokens(1) | board.getTokens(2);
+        int moves = board.getMoveCount();
+        nodes = 0;
+        int bestMove = -1;
+        int bestScore = Integer.MIN_VALUE;
+        for (int col : CENTER_ORDER) {
+            if (!canPlay(mask, col)) {
+                continue;
+            }
+            long move = (mask + bottomMask(col)) & columnMask(col);
+            int score;
+            if ((winningCells(current, mask) & move) != 0) {
+                score = (CELLS + 1 - moves) / 2;
+            } else {
+                score = -solve(current ^ mask, mask | move, moves + 1);
+                if (aborted) {
+                    break;
+                }
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = col;
+            }
+        }
+        return new Solution(bestMove, bestScore, moves);
+    }
+
+    /**
+     * Returns a key that identifies a position from the point of view of the side to move.
+     * Two positions have the same key exactly when they have the same tokens up to the colors,
+     * and then they also have the same score.
+     * @param board The game board.
+     * @param side The side to move.
+     * @return The key of the position.
+     */
+    public static long key(Board board, int side) {
+        return board.getTokens(side) + (board.getTokens(1) | board.getTokens(2)) + BOTTOM_ROW;
+    }
+
+    /**
+     * Returns the key of the mirrored position, with the columns in reverse order.
+     * @param key The key of a position.
+     * @return The key of the mirrored position.
+     */
+    public static long mirrorKey(long key) {
+        long mirrored = 0;
+        long columnBits = (1L << COLUMN_BITS) - 1;
+        for (int col = 0; col < COLUMNS; col++) {
+            mirrored |= ((key >>> col * COLUMN_BITS) & columnBits) << (COLUMNS - 1 - col) * COLUMN_BITS;
+        }
+        return mirrored;
+    }
+
+    /**
+     * Returns the number of positions visited by the last call to {@link #solve(Board, int)}.
+     * @return The number of nodes.
+     */
+    public long getLastNodes() {
+        return nodes;
+    }
+
+    /**
+     * Computes the exact score of a position by narrowing the score window with null-window searches.
+     * @param current The tokens of the side to move.
+     * @param mask All tokens.
+     * @param moves The number of tokens.
+     * @return The score of the position for the side to move.
+     */
+    private int solve(long current, long mask, int moves) {
+        if (canWinNext(current, mask)) {
+            return (CELLS + 1 - moves) / 2;
+        }
+        int min = -(CELLS - moves) / 2;
+        int max = (CELLS + 1 - moves) / 2;
+        while (min < max) {
+            int med = min + (max - min) / 2;
+            if (med <= 0 && min / 2 < med) {
+                med = min / 2;
+            } else if (med >= 0 && max / 2 > med) {
+                med = max / 2;
+            }
+            int result = negamax(current, mask, moves, med, med + 1);
+            if (aborted) {
+                return 0;
+            }
+            if (result <= med) {
+                max = result;
+            } else {
+                min = result;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Implements the negamax algorithm with alpha-beta pruning.
+     * The side to move must not be able to win with its next move.
+     * @param current The tokens of the side to move.
+     * @param mask All tokens.
+     * @param moves The number of tokens.
+     * @param alpha The score the side to move can already guarantee.
+     * @param beta The score the opponent can already hold the side to move to.
+     * @return The exact score if it is between alpha and beta, otherwise a bound on the same side of the window.
+     *         Meaningless if the solve ran out of time, and then nothing is stored in the table.
+     */
+    private int negamax(long current, long mask, int moves, int alpha, int beta) {
+        nodes++;
+        if (outOfTime()) {
+            return alpha;
+        }
+        long next = nonLosingMoves(current, mask);
+        if (next == 0) {
+            return -(CELLS - moves) / 2;
+        }
+        if (moves >= CELLS - 2) {
+            return 0;
+        }
+        int min = -(CELLS - 2 - moves) / 2;
+        if (alpha < min) {
+            alpha = min;
+            if (alpha >= beta) {
+                return alpha;
+            }
+        }
+        int max = (CELLS - 1 - moves) / 2;
+        long key = current + mask + BOTTOM_ROW;
+        long entry = table.probe(key);
+        if (entry != 0) {
+            int value = value(entry);
+            if (bound(entry) == UPPER_BOUND) {
+                max = Math.min(max, value);
+            } else {
+                min = Math.max(min, value);
+                if (alpha < min) {
+                    alpha = min;
+                }
+            }
+        }
+        if (beta > max) {
+            beta = max;
+        }
+        if (alpha >= beta) {
+            return alpha;
+        }
+
+        long[] moveList = sortedMoves[moves];
+        int[] scoreList = sortedScores[moves];
+        int count = 0;
+        for (int col : CENTER_ORDER) {
+            long move = next & columnMask(col);
+            if (move == 0) {
+                continue;
+            }
+            int score = Long.bitCount(winningCells(current | move, mask));
+            int i = count++;
+            while (i > 0 && scoreList[i - 1] < score) {
+                moveList[i] = moveList[i - 1];
+                scoreList[i] = scoreList[i - 1];
+                i--;
+            }
+            moveList[i] = move;
+            scoreList[i] = score;
+        }
+
+        for (int i = 0; i < count; i++) {
+            long move = moveList[i];
+            int score = -negamax(current ^ mask, mask | move, moves + 1, -beta, -alpha);
+            if (aborted) {
+                return alpha;
+            }
+            if (score >= beta) {
+                table.store(key, score, 0, LOWER_BOUND, NO_MOVE);
+                return score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+        table.store(key, alpha, 0, UPPER_BOUND, NO_MOVE);
+        return alpha;
+    }
+
+    /**
+     * Checks whether a solve with a time budget ran out of time.
+     * The clock is only read every {@link #DEADLINE_CHECK_INTERVAL} nodes.
+     * @return true if the solve has to stop.
+     */
+    private boolean outOfTime() {
+        if (timeBounded && --nodesUntilDeadlineCheck <= 0) {
+            nodesUntilDeadlineCheck = DEADLINE_CHECK_INTERVAL;
+            if (System.nanoTime() - deadline > 0) {
+                aborted = true;
+            }
+        }
+        return aborted;
+    }
+
+    /**
+     * Checks whether the side to move can win with its next move.
+     * @param current The tokens of the side to move.
+     * @param mask All tokens.
+     * @return true if a playable cell completes a line of four.
+     */
+    private static boolean canWinNext(long current, long mask) {
+        return (winningCells(current, mask) & playableCells(mask)) != 0;
+    }
+
+    /**
+     * Returns the playable cells that do not let the opponent win at once.
+     * When the opponent threatens to win in two places, there is no such move.
+     * @param current The tokens of the side to move.
+     * @param mask All tokens.
+     * @return The mask of the moves worth searching.
+     */
+    private static long nonLosingMoves(long current, long mask) {
+        long possible = playableCells(mask);
+        long opponentWins = winningCells(current ^ mask, mask);
+        long forced = possible & opponentWins;
+        if (forced != 0) {
+            if ((forced & (forced - 1)) != 0) {
+                return 0;
+            }
+            possible = forced;
+        }
+        return possible & ~(opponentWins >>> 1);
+    }
+
+    /**
+     * Returns the empty cells that would complete a line of four for the given tokens.
+     * @param position The tokens of one side.
+     * @param mask All tokens.
+     * @return The mask of the winning cells, playable or not.
+     */
+    private static long winningCells(long position, long mask) {
+        // vertical
+        long result = (position << 1) & (position << 2) & (position << 3);
+        // horizontal and both diagonals
+        for (int shift = COLUMN_BITS - 1; shift <= COLUMN_BITS + 1; shift++) {
+            long pair = (position << shift) & (position << 2 * shift);
+            result |= pair & (position << 3 * shift);
+            result |= pair & (position >>> shift);
+            pair = (position >>> shift) & (position >>> 2 * shift);
+            result |= pair & (position << shift);
+            result |= pair & (position >>> 3 * shift);
+        }
+        return result & (BOARD_MASK ^ mask);
+    }
+
+    /**
+     * Returns the lowest empty cell of every column that is not full.
+     * @param mask All tokens.
+     * @return The mask of the playable cells.
+     */
+    private static long playableCells(long mask) {
+        return (mask + BOTTOM_ROW) & BOARD_MASK;
+    }
+
+    /**
+     * Checks whether a column has room for another token.
+     * @param mask All tokens.
+     * @param col The column.
+     * @return true if the column is not full.
+     */
+    private static boolean canPlay(long mask, int col) {
+        return (mask & topMask(col)) == 0;
+    }
+
+    /**
+     * Returns the mask of the bottom cell of a column.
+     * @param col The column.
+     * @return The mask of the cell.
+     */
+    private static long bottomMask(int col) {
+        return 1L << col * COLUMN_BITS;
+    }
+
+    /**
+     * Returns the mask of the top cell of a column.
+     * @param col The column.
+     * @return The mask of the cell.
+     */
+    private static long topMask(int col) {
+        return 1L << (ROWS - 1) << col * COLUMN_BITS;
+    }
+
+    /**
+     * Returns the mask of all cells of a column.
+     * @param col The column.
+     * @return The mask of the column.
+     */
+    private static long columnMask(int col) {
+        return ((1L << ROWS) - 1) << col * COLUMN_BITS;
+    }
+
+    /**
+     * Builds the mask of the bottom cell of every column.
+     * @return The mask of the bottom row.
+     */
+    private static long bottomRow() {
+        long mask = 0;
+        for (int col = 0; col < COLUMNS; col++) {
+            mask |= bottomMask(col);
+        }
+        return mask;
+    }
+
+    /**
+     * This class holds the result of solving a position: the best move and the outcome it leads to.
+     */
+    public static class Solution {
+        private final int move;
+        private final int score;
+        private final int moveCount;
+
+        /**
+         * Constructor for the Solution class.
+         * @param move The best move.
+         * @param score The score of the best move for the side to move.
+         * @param moveCount The number of tokens of the solved position.
+         */
+        public Solution(int move, int score, int moveCount) {
+            this.move = move;
+            this.score = score;
+            this.moveCount = moveCount;
+        }
+
+        /**
+         * Returns the column of the best move.
+         * @return The best move.
+         */
+        public int getMove() {
+            return move;
+        }
+
+        /**
+         * Returns the score of the best move for the side to move.
+         * @return The score, positive for a win, 0 for a draw and negative for a loss.
+         */
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * Returns the number of moves left until the game ends, counting the moves of both sides,
+         * when both sides play perfectly.
+         * @return The distance to the end of the game in plies.
+         */
+        public int getPliesToEnd() {
+            if (score > 0) {
+                int winningToken = CELLS / 2 + 1 - score;
+                return 2 * (winningToken - moveCount / 2) - 1;
+            }
+            if (score < 0) {
+                int winningToken = CELLS / 2 + 1 + score;
+                return 2 * (winningToken - (moveCount + 1) / 2);
+            }
+            return CELLS - moveCount;
+        }
+
+        @Override
+        public String toString() {
+            String outcome = score > 0 ? "win" : score < 0 ? "loss" : "draw";
+            return "move " + move + ", " + outcome + " in " + getPliesToEnd() + " plies";
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.Griffty.AI;
+
+/**
+ * This class holds the result of comparing a parallel search with a serial search of the same position.
+ * It is used to choose how many threads the search pool should have.
+ */
+public class SpeedupReport {
+    private final int parallelism;
+    private final long serialNanos;
+    private final long serialNodes;
+    private final long parallelNanos;
+    private final long parallelNodes;
+    private final boolean sameMove;
+
+    /**
+     * Constructor for the SpeedupReport class.
+     * @param parallelism The number of threads of the pool.
+     * @param serialNanos The time the serial search took in nanoseconds.
+     * @param serialNodes The number of nodes the serial search visited.
+     * @param parallelNanos The time the parallel search took in nanoseconds.
+     * @param parallelNodes The number of nodes the parallel search visited.
+     * @param sameMove Whether both searches picked the same move.
+     */
+    public SpeedupReport(int parallelism, long serialNanos, long serialNodes, long parallelNanos, long parallelNodes, boolean sameMove) {
+        this.parallelism = parallelism;
+        this.serialNanos = serialNanos;
+        this.serialNodes = serialNodes;
+        this.parallelNanos = parallelNanos;
+        this.parallelNodes = parallelNodes;
+        this.sameMove = sameMove;
+    }
+
+    /**
+     * Returns how many times faster the parallel search was.
+     * @return The serial time divided by the parallel time.
+     */
+    public double getSpeedup() {
+        return (double) serialNanos / Math.max(1, parallelNanos);
+    }
+
+    /**
+     * Returns how well the threads of the pool were used.
+     * @return The speedup divided by the number of threads, 1 being a perfect use.
+     */
+    public double getEfficiency() {
+        return getSpeedup() / parallelism;
+    }
+
+    /**
+     * Returns how many more nodes the parallel search visited because it prunes less.
+     * @return The parallel node count divided by the serial node count.
+     */
+    public double getSearchOverhead() {
+        return (double) parallelNodes / Math.max(1, serialNodes);
+    }
+
+    /**
+     * Returns the number of threads of the pool.
+     * @return The parallelism of the pool.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Returns the time the serial search took.
+     * @return The time in nanoseconds.
+     */
+    public long getSerialNanos() {
+        return serialNanos;
+    }
+
+    /**
+     * Returns the time the parallel search took.
+     * @return The time in nanoseconds.
+     */
+    public long getParallelNanos() {
+        return parallelNanos;
+    }
+
+    /**
+     * Returns whether both searches picked the same move.
+     * @return true if the moves are the same.
+     */
+    public boolean isSameMove() {
+        return sameMove;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("threads=%d serial=%.1fms parallel=%.1fms speedup=%.2f efficiency=%.2f overhead=%.2f sameMove=%b",
+                parallelism, serialNanos / 1e6, parallelNanos / 1e6, getSpeedup(), getEfficiency(), getSearchOverhead(), sameMove);
+    }
+}
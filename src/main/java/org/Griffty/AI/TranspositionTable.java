@@ -0,0 +1,165 @@
+package org.Griffty.AI;
+
+import java.util.Arrays;
+
+/**
+ * This class is a fixed-size transposition table for the AI search.
+ * It remembers the result of searched positions so that a position reached by a different order of moves is not searched again.
+ * <p>
+ * Every entry takes two longs: the packed search result and the position key xor-ed with it.
+ * When two positions fall into the same slot, the entry searched to a greater depth is kept,
+ * unless it is left over from an older search.
+ * <p>
+ * The table can be shared by several search threads without locks. A slot written by two threads at once
+ * may end up with the key of one and the result of the other, but then the xor no longer matches
+ * and the slot simply reads as empty.
+ */
+public class TranspositionTable {
+    /**
+     * The stored value is the exact score of the position.
+     */
+    public static final int EXACT = 0;
+    /**
+     * The stored value is a lower bound of the score of the position.
+     */
+    public static final int LOWER_BOUND = 1;
+    /**
+     * The stored value is an upper bound of the score of the position.
+     */
+    public static final int UPPER_BOUND = 2;
+    /**
+     * The move stored when no move is known.
+     */
+    public static final int NO_MOVE = 0xF;
+
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+    private static final long PRESENT = 1L << 24;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int indexMask;
+    private int generation;
+
+    /**
+     * Constructor for the TranspositionTable class.
+     * The number of entries is the largest power of two that fits in the given size.
+     * @param sizeMb The maximum size of the table in megabytes.
+     */
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb < 1) {
+            throw new IllegalArgumentException("Transposition table size must be at least 1 MB");
+        }
+        long maxEntries = ((long) sizeMb << 20) / ENTRY_BYTES;
+        int size = Integer.highestOneBit((int) Math.min(maxEntries, 1 << 30));
+        keys = new long[size];
+        entries = new long[size];
+        indexMask = size - 1;
+    }
+
+    /**
+     * Starts a new search. Entries of older searches are replaced first.
+     */
+    public void nextGeneration() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Looks up a position in the table.
+     * @param key The key of the position.
+     * @return The packed entry, or 0 if the position is not in the table.
+     */
+    public long probe(long key) {
+        int index = index(key);
+        long entry = entries[index];
+        return (keys[index] ^ entry) == key ? entry : 0;
+    }
+
+    /**
+     * Stores the result of a search in the table.
+     * @param key The key of the position.
+     * @param value The score of the position.
+     * @param depth The depth the position was searched to.
+     * @param bound The type of the score, one of {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}.
+     * @param move The best move found, or {@link #NO_MOVE}.
+     */
+    public void store(long key, int value, int depth, int bound, int move) {
+        int index = index(key);
+        long old = entries[index];
+        if ((keys[index] ^ old) != key && old != 0 && generation(old) == generation && depth(old) > depth) {
+            return;
+        }
+        long entry = (value & 0xFFFFFFFFL) << 32 | (long) generation << 16 | (long) depth << 8 | (long) bound << 4 | move | PRESENT;
+        entries[index] = entry;
+        keys[index] = key ^ entry;
+    }
+
+    /**
+     * Clears all entries of the table.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(entries, 0);
+    }
+
+    /**
+     * Returns the number of entries the table can hold.
+     * @return The number of entries.
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Picks the slot of a key. The key is mixed first because neighbouring positions differ in only a few bits.
+     * @param key The key of the position.
+     * @return The index of the slot.
+     */
+    private int index(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & indexMask;
+    }
+
+    /**
+     * Returns the score stored in an entry.
+     * @param entry The packed entry.
+     * @return The score.
+     */
+    public static int value(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    /**
+     * Returns the depth stored in an entry.
+     * @param entry The packed entry.
+     * @return The depth.
+     */
+    public static int depth(long entry) {
+        return (int) (entry >>> 8) & 0xFF;
+    }
+
+    /**
+     * Returns the bound type stored in an entry.
+     * @param entry The packed entry.
+     * @return The bound type.
+     */
+    public static int bound(long entry) {
+        return (int) (entry >>> 4) & 0xF;
+    }
+
+    /**
+     * Returns the best move stored in an entry.
+     * @param entry The packed entry.
+     * @return The best move, or {@link #NO_MOVE}.
+     */
+    public static int move(long entry) {
+        return (int) entry & 0xF;
+    }
+
+    /**
+     * Returns the search generation stored in an entry.
+     * @param entry The packed entry.
+     * @return The generation.
+     */
+    private static int generation(long entry) {
+        return (int) (entry >>> 16) & 0xFF;
+    }
+}
@@ -5,48 +5,149 @@ import java.util.Arrays;
 /**
  * This class represents the game board for a Connect Four game.
  * It includes methods for manipulating the game board and checking for wins.
+ * <p>
+ * The board is stored as a bitboard: one {@code long} mask per side and the height of every column.
+ * Each column takes {@link #COLUMN_BITS} bits of a mask, starting from its bottom cell, and the extra
+ * bit on top of every column is always empty so that shifted masks never wrap into the next column.
+ * <p>
+ * The board also keeps the heuristic score the AI plays by, from the yellow side's point of view.
+ * Every line of four cells (a window) stores how many red and yellow tokens it holds, and putting or
+ * removing a token only rescores the windows through its cell, so reading the score costs nothing.
  */
 public class Board {
-    private final int[][] cells;
+    public static final int ROWS = 6;
+    public static final int COLUMNS = 7;
+    public static final int COLUMN_BITS = ROWS + 1;
+
+    private static final long BOTTOM_ROW = 0b0000001_0000001_0000001_0000001_0000001_0000001_0000001L;
+    private static final int[] LINE_SHIFTS = {1, COLUMN_BITS, COLUMN_BITS - 1, COLUMN_BITS + 1};
+    private static final int WINDOW_COUNT = 69;
+    private static final int[] WINDOW_STEPS = {1, 5};
+    private static final int[] WINDOW_SCORES = new int[25];
+    private static final int[][] CELL_WINDOWS = new int[COLUMNS * COLUMN_BITS][];
+
+    static {
+        for (int red = 0; red <= 4; red++) {
+            for (int yellow = 0; red + yellow <= 4; yellow++) {
+                WINDOW_SCORES[red + 5 * yellow] = scoreWindow(yellow, red, 4 - red - yellow);
+            }
+        }
+        int[] windowsPerCell = new int[CELL_WINDOWS.length];
+        int[][] windows = new int[WINDOW_COUNT][];
+        int window = 0;
+        // {column step, height step} of horizontal, vertical and both diagonal lines
+        for (int[] direction : new int[][]{{1, 0}, {0, 1}, {1, 1}, {1, -1}}) {
+            for (int col = 0; col < COLUMNS; col++) {
+                for (int height = 0; height < ROWS; height++) {
+                    int endCol = col + 3 * direction[0];
+                    int endHeight = height + 3 * direction[1];
+                    if (endCol >= COLUMNS || endHeight < 0 || endHeight >= ROWS) {
+                        continue;
+                    }
+                    windows[window] = new int[4];
+                    for (int i = 0; i < 4; i++) {
+                        int cell = (col + i * direction[0]) * COLUMN_BITS + height + i * direction[1];
+                        windows[window][i] = cell;
+                        windowsPerCell[cell]++;
+                    }
+                    window++;
+                }
+            }
+        }
+        for (int cell = 0; cell < CELL_WINDOWS.length; cell++) {
+            CELL_WINDOWS[cell] = new int[windowsPerCell[cell]];
+            windowsPerCell[cell] = 0;
+        }
+        for (window = 0; window < WINDOW_COUNT; window++) {
+            for (int cell : windows[window]) {
+                CELL_WINDOWS[cell][windowsPerCell[cell]++] = window;
+            }
+        }
+    }
+
+    private final long[] tokens = new long[2];
+    private final int[] heights = new int[COLUMNS];
+    private long highlighted;
+    private final int[] windowStates = new int[WINDOW_COUNT];
+    private final int[] rowSideTokens = new int[ROWS];
+    private int score;
+    private final int[] moves = new int[ROWS * COLUMNS];
+    private int moveCount;
+    private int historyStart;
+
     /**
      * Constructor that initializes the game board with a given 2D array of cells.
      * @param cells the initial state of the game board.
      */
     public Board(int[][] cells) {
-        this.cells = cells.clone();
-        for (int i = 0; i < cells.length; i++) {
-            this.cells[i] = cells[i].clone();
+        for (int col = 0; col < COLUMNS; col++) {
+            for (int row = ROWS - 1; row >= 0 && cells[row][col] != 0; row--) {
+                long bit = bit(col, heights[col]);
+                int cell = cells[row][col];
+                if (cell == 3) {
+                    highlighted |= bit;
+                } else {
+                    tokens[cell - 1] |= bit;
+                    updateScore(col, heights[col], cell, 1);
+                }
+                heights[col]++;
+                moves[moveCount++] = col;
+            }
         }
+        historyStart = moveCount;
+    }
+
+    /**
+     * Copy constructor that initializes the game board with the state of another board.
+     * @param other the board to copy.
+     */
+    public Board(Board other) {
+        tokens[0] = other.tokens[0];
+        tokens[1] = other.tokens[1];
+        highlighted = other.highlighted;
+        System.arraycopy(other.heights, 0, heights, 0, COLUMNS);
+        System.arraycopy(other.windowStates, 0, windowStates, 0, WINDOW_COUNT);
+        System.arraycopy(other.rowSideTokens, 0, rowSideTokens, 0, ROWS);
+        score = other.score;
+        System.arraycopy(other.moves, 0, moves, 0, other.moveCount);
+        moveCount = other.moveCount;
+        historyStart = other.historyStart;
     }
+
     /**
      * Default constructor that initializes an empty game board.
      */
     public Board() {
-        cells = new int[6][7];
     }
 
     /**
-     * Sets the value of a cell in the game board.
-     * @param row the row of the cell.
+     * Returns the bit of the given cell.
      * @param col the column of the cell.
-     * @param side the value to set the cell to.
-     * @throws IllegalArgumentException if the cell is already occupied.
+     * @param height the height of the cell counted from the bottom of the column.
+     * @return the mask with only that cell set.
      */
-    private void setCell(int row, int col, int side) {
-        if (cells[row][col] != 0){
-            throw new IllegalArgumentException("Cell is already occupied");
-        }
-        cells[row][col] = side;
+    private static long bit(int col, int height) {
+        return 1L << (col * COLUMN_BITS + height);
     }
 
     /**
-     * Returns a clone of the game board.
-     * @return a clone of the game board.
+     * Returns the game board as a 2D array, row 0 being the top row.
+     * Winning tokens highlighted by {@link #checkWin(boolean)} are reported as 3s.
+     * @return a fresh 2D array with the state of the game board.
      */
     public int[][] getCells() {
-        int[][] cells = new int[this.cells.length][this.cells[0].length];
-        for (int i = 0; i < this.cells.length; i++) {
-            cells[i] = this.cells[i].clone();
+        int[][] cells = new int[ROWS][COLUMNS];
+        for (int col = 0; col < COLUMNS; col++) {
+            for (int height = 0; height < heights[col]; height++) {
+                long bit = bit(col, height);
+                int cell;
+                if ((highlighted & bit) != 0) {
+                    cell = 3;
+                } else {
+                    cell = (tokens[0] & bit) != 0 ? 1 : 2;
+                }
+                cells[ROWS - 1 - height][col] = cell;
+            }
         }
         return cells;
     }
@@ -58,31 +159,107 @@ public class Board {
      * @return true if the token was successfully placed, false otherwise.
      */
     public boolean putToken(int col, int side) {
-        for (int i = cells.length - 1; i >= 0; i--) {
-            int[] row = cells[i];
-            if (row[col] == 0) {
-                if (side == 3){
-                    System.out.println("Side is 3");
-                }
-                setCell(i, col, side);
-                return true;
-            }
+        if (heights[col] == ROWS) {
+            return false;
         }
-        return false;
+        int height = heights[col]++;
+        tokens[side - 1] |= bit(col, height);
+        updateScore(col, height, side, 1);
+        moves[moveCount++] = col;
+        return true;
     }
 
     /**
      * Removes the top token from a column on the game board.
+     * Removing the last token put is O(1); removing from another column also drops that column from the move history.
      * @param col the column to remove the token from.
      */
     public void removeToken(int col) {
-        for (int[] row : cells) {
-            if (row[col] != 0) {
-                row[col] = 0;
-                return;
+        if (heights[col] == 0) {
+            System.out.println("Column is empty");
+            return;
+        }
+        int index = moveCount - 1;
+        while (moves[index] != col) {
+            index--;
+        }
+        System.arraycopy(moves, index + 1, moves, index, moveCount - 1 - index);
+        moveCount--;
+        historyStart = Math.min(historyStart, moveCount);
+        int height = --heights[col];
+        long bit = bit(col, height);
+        if (((tokens[0] | tokens[1]) & bit) != 0) {
+            updateScore(col, height, (tokens[0] & bit) != 0 ? 1 : 2, -1);
+        }
+        long keep = ~bit;
+        tokens[0] &= keep;
+        tokens[1] &= keep;
+        highlighted &= keep;
+    }
+
+    /**
+     * Rescores the windows through a cell after a token was put in it or removed from it.
+     * @param col the column of the cell.
+     * @param height the height of the cell.
+     * @param side the side of the token.
+     * @param delta 1 if the token was put, -1 if it was removed.
+     */
+    private void updateScore(int col, int height, int side, int delta) {
+        int step = delta * WINDOW_STEPS[side - 1];
+        for (int window : CELL_WINDOWS[col * COLUMN_BITS + height]) {
+            int state = windowStates[window];
+            score += WINDOW_SCORES[state + step] - WINDOW_SCORES[state];
+            windowStates[window] = state + step;
+        }
+        if (side == 2) {
+            if (col == 3) {
+                score += 3 * delta;
+            } else if (col == 4 || col == 6) {
+                int before = rowSideTokens[height];
+                rowSideTokens[height] += delta;
+                if ((before == 0) != (rowSideTokens[height] == 0)) {
+                    score += 2 * delta;
+                }
             }
         }
-        System.out.println("Column is empty");
+    }
+
+    /**
+     * Scores a window of four cells for the yellow side.
+     * @param botPieces the number of yellow tokens in the window.
+     * @param opponentPieces the number of red tokens in the window.
+     * @param empty the number of empty cells in the window.
+     * @return the score of the window.
+     */
+    private static int scoreWindow(int botPieces, int opponentPieces, int empty) {
+        int score = 0;
+
+        // Check for bots rows of tokens
+        if (botPieces == 4) {
+            score += 100000;
+        } else if (botPieces == 3 && empty == 1) {
+            score += 50;
+        } else if (botPieces == 2 && empty == 2) {
+            score += 10;
+        }
+
+        // Check for opponents rows of tokens
+        if (opponentPieces == 3 && empty == 1) {
+            score -= 300;
+        } else if (opponentPieces == 2 && empty == 2) {
+            score -= 10;
+        }
+        return score;
+    }
+
+    /**
+     * Returns the heuristic score of the board for the yellow side.
+     * Yellow tokens in the central columns and open lines of two and three tokens count for yellow,
+     * open lines of red tokens count against it.
+     * @return the score of the board.
+     */
+    public int getScore() {
+        return score;
     }
 
     /**
@@ -91,92 +268,120 @@ public class Board {
      * @return the side of the winning tokens, or 0 if there is no win, or -1 if the board is full.
      */
     public int checkWin(boolean replace) {
-        boolean hasEmpty = false;
-        for (int[] row : cells) {
-            for (int cell : row) {
-                if (cell == 0) {
-                    hasEmpty = true;
-                    break;
+        for (int side = 1; side <= 2; side++) {
+            long line = winningLine(tokens[side - 1]);
+            if (line != 0) {
+                if (replace) {
+                    highlighted |= line;
                 }
+                return side;
             }
         }
-        if (!hasEmpty) {
-            return -1;
+        return isFull() ? -1 : 0;
+    }
+
+    /**
+     * Checks if the top token of a column is part of a line of four.
+     * Only the four lines through that token are checked.
+     * @param col the column to check.
+     * @return true if the top token of the column wins.
+     */
+    public boolean checkWinAt(int col) {
+        int height = heights[col] - 1;
+        if (height < 0) {
+            return false;
         }
-        // Check for horizontal wins
-        for (int row = 0; row < cells.length; row++) {
-            for (int col = 0; col < cells[0].length - 3; col++) {
-                int cell = cells[row][col];
-                if (cell != 0 && cell == cells[row][col+1] && cell == cells[row][col+2] && cell == cells[row][col+3]) {
-                    if (replace) {
-                        cells[row][col] = 3;
-                        cells[row][col + 1] = 3;
-                        cells[row][col + 2] = 3;
-                        cells[row][col + 3] = 3;
-                    }
-                    return cell;
-                }
+        long bit = bit(col, height);
+        long mask = (tokens[0] & bit) != 0 ? tokens[0] : tokens[1];
+        for (int shift : LINE_SHIFTS) {
+            int count = 1;
+            for (long next = bit >>> shift; (mask & next) != 0; next >>>= shift) {
+                count++;
             }
-        }
-
-        // Check for vertical wins
-        for (int col = 0; col < cells[0].length; col++) {
-            for (int row = 0; row < cells.length - 3; row++) {
-                int cell = cells[row][col];
-                if (cell != 0 && cell == cells[row+1][col] && cell == cells[row+2][col] && cell == cells[row+3][col]) {
-                    if (replace) {
-                        cells[row][col] = 3;
-                        cells[row + 1][col] = 3;
-                        cells[row + 2][col] = 3;
-                        cells[row + 3][col] = 3;
-                    }
-                    return cell;
-                }
+            for (long next = bit << shift; (mask & next) != 0; next <<= shift) {
+                count++;
             }
-        }
-
-        // Check for diagonal wins (down-right)
-        for (int row = 0; row < cells.length - 3; row++) {
-            for (int col = 0; col < cells[0].length - 3; col++) {
-                int cell = cells[row][col];
-                if (cell != 0 && cell == cells[row+1][col+1] && cell == cells[row+2][col+2] && cell == cells[row+3][col+3]) {
-                    if (replace) {
-                        cells[row][col] = 3;
-                        cells[row + 1][col + 1] = 3;
-                        cells[row + 2][col + 2] = 3;
-                        cells[row + 3][col + 3] = 3;
-                    }
-                    return cell;
-                }
+            if (count >= 4) {
+                return true;
             }
         }
+        return false;
+    }
 
-        // Check for diagonal wins (down-left)
-        for (int row = 0; row < cells.length - 3; row++) {
-            for (int col = 3; col < cells[0].length; col++) {
-                int cell = cells[row][col];
-                if (cell != 0 && cell == cells[row+1][col-1] && cell == cells[row+2][col-2] && cell == cells[row+3][col-3]) {
-                    if (replace) {
-                        cells[row][col] = 3;
-                        cells[row + 1][col - 1] = 3;
-                        cells[row + 2][col - 2] = 3;
-                        cells[row + 3][col - 3] = 3;
-                    }
-                    return cell;
-                }
+    /**
+     * Checks if the last token put on the game board is part of a line of four.
+     * Since the game ends at the first line of four, this is the only token that can have made one.
+     * @return true if the last move wins.
+     */
+    public boolean lastMoveWins() {
+        int lastMove = getLastMove();
+        return lastMove >= 0 && checkWinAt(lastMove);
+    }
+
+    /**
+     * Returns the column of the last token put on the game board.
+     * @return the column of the last move, or -1 if no token was put since the board was created from cells or cleared.
+     */
+    public int getLastMove() {
+        return moveCount > historyStart ? moves[moveCount - 1] : -1;
+    }
+
+    /**
+     * Returns the columns of the tokens put on the game board, in the order they were put.
+     * @return the columns of the moves made since the board was created from cells or cleared.
+     */
+    public int[] getMoves() {
+        return Arrays.copyOfRange(moves, historyStart, moveCount);
+    }
+
+    /**
+     * Returns the number of tokens on the game board.
+     * @return the number of moves made.
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Finds a line of four in a mask.
+     * Vertical, horizontal and both diagonal directions are checked by shifting the mask
+     * 1, {@link #COLUMN_BITS}, {@link #COLUMN_BITS} - 1 and {@link #COLUMN_BITS} + 1 bits respectively.
+     * @param mask the tokens of one side.
+     * @return the mask of the four cells of the first line found, or 0 if there is none.
+     */
+    private static long winningLine(long mask) {
+        for (int shift : LINE_SHIFTS) {
+            long pairs = mask & (mask >>> shift);
+            long starts = pairs & (pairs >>> 2 * shift);
+            if (starts != 0) {
+                long start = Long.lowestOneBit(starts);
+                return start | start << shift | start << 2 * shift | start << 3 * shift;
             }
         }
-
         return 0;
     }
 
+    /**
+     * Checks if every column of the game board is full.
+     * @return true if no more tokens can be put on the board.
+     */
+    public boolean isFull() {
+        return moveCount == ROWS * COLUMNS;
+    }
+
     /**
      * Clears the game board.
      */
     public void clear() {
-        for (int[] row : cells) {
-            Arrays.fill(row, 0);
-        }
+        tokens[0] = 0;
+        tokens[1] = 0;
+        highlighted = 0;
+        Arrays.fill(heights, 0);
+        Arrays.fill(windowStates, 0);
+        Arrays.fill(rowSideTokens, 0);
+        score = 0;
+        moveCount = 0;
+        historyStart = 0;
     }
 
     /**
@@ -185,11 +390,9 @@ public class Board {
      * @return the 2D array representation of the game board.
      */
     public static int[][] StringToCells(String cellsString){
-        int[][] cells = new int[6][7];
+        int[][] cells = new int[ROWS][COLUMNS];
         for (int i = 0; i < cellsString.length(); i++) {
-            int row = i / 7;
-            int col = i % 7;
-            cells[row][col] = Integer.parseInt(String.valueOf(cellsString.charAt(i)));
+            cells[i / COLUMNS][i % COLUMNS] = cellsString.charAt(i) - '0';
         }
         return cells;
     }
@@ -200,20 +403,49 @@ public class Board {
      * @return the string representation of the game board.
      */
     public static String cellsToString(int[][] cells) {
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(ROWS * COLUMNS);
         for (int[] row : cells) {
             for (int cell : row) {
-                sb.append(cell);
+                sb.append((char) ('0' + cell));
             }
         }
         return sb.toString();
     }
 
+    /**
+     * Returns a key that uniquely identifies the tokens on the game board.
+     * The key is the yellow tokens plus one marker bit on top of every column, which fits in
+     * {@link #COLUMNS} * {@link #COLUMN_BITS} bits, so two different positions never share a key.
+     * @return the key of the current position.
+     */
+    public long getKey() {
+        long occupied = tokens[0] | tokens[1] | highlighted;
+        return tokens[1] + occupied + BOTTOM_ROW;
+    }
+
+    /**
+     * Returns the tokens of a side as a mask in the bitboard layout described above.
+     * @param side the side.
+     * @return the mask of the side's tokens.
+     */
+    public long getTokens(int side) {
+        return tokens[side - 1];
+    }
+
+    /**
+     * Returns the number of tokens in a column.
+     * @param col the column.
+     * @return the height of the column.
+     */
+    public int getHeight(int col) {
+        return heights[col];
+    }
+
     /**
      * Returns the number of columns in the game board.
      * @return the number of columns in the game board.
      */
     public int getColumns() {
-        return cells[0].length;
+        return COLUMNS;
     }
 }
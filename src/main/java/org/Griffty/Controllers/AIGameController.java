@@ -1,24 +1,53 @@
 package org.Griffty.Controllers;
 
 import org.Griffty.AI.AIPredictor;
+import org.Griffty.AI.OpeningBook;
+import org.Griffty.AI.Solver;
+import org.Griffty.UserInterface.IUserInterface;
 import org.Griffty.enums.InputErrorReason;
 import org.Griffty.enums.InputType;
 
+import java.time.Duration;
+
 /**
  * This class is responsible for controlling the game when playing against the AI.
  * It extends the AbstractGameController class and implements the makeTurn method.
  */
 public class AIGameController extends AbstractGameController {
+    /**
+     * The time the AI may think about a move. The deeper difficulties stop early when it runs out.
+     */
+    public static final Duration MOVE_BUDGET = Duration.ofSeconds(2);
+    /**
+     * The number of tokens from which the perfect difficulty solves positions exactly.
+     * Earlier positions take the solver too long, so they come from the opening book,
+     * or are searched like the deepest difficulty when the book does not have them.
+     * Later positions that the solver cannot solve within half of {@link #MOVE_BUDGET} are searched the same way,
+     * in the time that is left.
+     */
+    public static final int SOLVER_MIN_MOVES = 10;
+    private static final int DEMONIC_DEPTH = 8;
     private final AIPredictor ai;
+    private final Solver solver;
 
     /**
      * Constructor for the AIGameController class.
+     * Only the deepest difficulties take moves from the opening book, since its moves are perfect.
      * @param inputType The type of user interface to use for the game.
      */
     public AIGameController(InputType inputType) {
         super(inputType);
         int depth = UI.getDifficulty();
-        ai = new AIPredictor(depth * 2); //todo: Use GPGPU computing for better performance || no need... it's already destroying me
+        if (depth == IUserInterface.PERFECT_DIFFICULTY) {
+            ai = new AIPredictor(DEMONIC_DEPTH);
+            solver = new Solver();
+        } else {
+            ai = new AIPredictor(depth * 2); //todo: Use GPGPU computing for better performance || no need... it's already destroying me
+            solver = null;
+        }
+        if (depth == IUserInterface.PERFECT_DIFFICULTY || depth * 2 >= DEMONIC_DEPTH) {
+            ai.setOpeningBook(OpeningBook.openDefault());
+        }
         startGame();
     }
 
@@ -38,10 +67,23 @@ public class AIGameController extends AbstractGameController {
 
     /**
      * Makes a turn for the AI.
-     * It uses the AIPredictor to decide the best move and then makes that move.
+     * It uses the AIPredictor, or the Solver at the perfect difficulty, to decide the best move and then makes that move.
+     * The solver and the predictor share the move budget, so the turn stays within it.
      */
     private void AITurn() {
-        int col = ai.makeMove(board);
+        int col = -1;
+        Duration budget = MOVE_BUDGET;
+        if (solver != null && board.getMoveCount() >= SOLVER_MIN_MOVES) {
+            long start = System.nanoTime();
+            Solver.Solution solution = solver.solve(board, currentTurn, MOVE_BUDGET.dividedBy(2));
+            if (solution != null) {
+                col = solution.getMove();
+            }
+            budget = MOVE_BUDGET.minusNanos(System.nanoTime() - start);
+        }
+        if (col < 0) {
+            col = ai.makeMove(board, budget.isNegative() ? Duration.ZERO : budget);
+        }
         board.putToken(col, currentTurn);
     }
 
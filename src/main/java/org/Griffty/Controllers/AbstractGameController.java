@@ -1,6 +1,8 @@
 package org.Griffty.Controllers;
 
 import org.Griffty.Board;
+import org.Griffty.Statistics.GameArchive;
+import org.Griffty.Statistics.GameRecord;
 import org.Griffty.UserInterface.ConnectFourConsoleInterface;
 import org.Griffty.UserInterface.Graphic.ConnectFourGUI;
 import org.Griffty.UserInterface.IUserInterface;
@@ -18,7 +20,7 @@ public abstract class AbstractGameController {
     protected IUserInterface UI;
     protected final Board board;
     protected int currentTurn = 1; // 1 - red; 2 - yellow || 1 - you; 2 - enemy
-    protected boolean forceStop = false;
+    protected volatile boolean forceStop = false;
 
     /**
      * Constructor for the AbstractGameController class.
@@ -39,11 +41,20 @@ public abstract class AbstractGameController {
     }
 
     /**
-     * Starts the game.
+     * Constructor for the AbstractGameController class, for games without a local user interface.
+     * Subclasses that use it must override every method that talks to the user interface.
+     */
+    protected AbstractGameController() {
+        board = new Board();
+    }
+
+    /**
+     * Starts the game. A game that ends with a win or a draw is added to the game archive.
      */
     protected void startGame(){
         board.clear();
-        currentTurn = random.nextInt(2) + 1;
+        int firstTurn = chooseFirstTurn();
+        currentTurn = 3 - firstTurn;
         int victoryStatus;
         while ((victoryStatus = board.checkWin(true)) == 0) {
             currentTurn = 3 - currentTurn;
@@ -56,11 +67,36 @@ public abstract class AbstractGameController {
         }
         isGameRunning = false;
         updateBoard(board.getCells());
+        archiveGame(firstTurn, victoryStatus);
         announceWinner(victoryStatus);
         if (playAgain()){
             startGame();
             return;
         }
+        quit();
+    }
+
+    /**
+     * Chooses the side that moves first, at random.
+     * @return The side that moves first.
+     */
+    protected int chooseFirstTurn() {
+        return random.nextInt(2) + 1;
+    }
+
+    /**
+     * Adds the finished game to the game archive.
+     * @param firstTurn The side that moved first.
+     * @param victoryStatus The status of the victory.
+     */
+    protected void archiveGame(int firstTurn, int victoryStatus) {
+        GameArchive.getInstance().append(GameRecord.of(board, firstTurn, victoryStatus));
+    }
+
+    /**
+     * Ends the program once the players do not want to play again.
+     */
+    protected void quit() {
         System.exit(0);
     }
 
@@ -0,0 +1,143 @@
+package org.Griffty.Controllers;
+
+import org.Griffty.AI.BotService;
+import org.Griffty.Board;
+import org.Griffty.Listeners.OnClientDisconnectedListener;
+import org.Griffty.Network.GameSession;
+import org.Griffty.Network.GameSessionManager;
+import org.Griffty.Network.WebSocketServerEndpoint;
+import org.Griffty.Statistics.RatingEngine;
+import org.Griffty.enums.InputErrorReason;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * This class is responsible for controlling a game hosted by the server between a client and a bot.
+ * It has no local user interface: every update is sent to the client and its moves are requested over the network.
+ * The client plays red, the bot plays yellow and gets its moves from the {@link BotService}.
+ */
+public class BotGameController extends AbstractGameController implements OnClientDisconnectedListener {
+    private final GameSession session;
+    private final int difficulty;
+    private WebSocketServerEndpoint player;
+
+    /**
+     * Constructor for the BotGameController class.
+     * @param session The game to control.
+     * @param difficulty The difficulty of the bot, from 1 to {@link BotService#MAX_DIFFICULTY}.
+     */
+    public BotGameController(GameSession session, int difficulty) {
+        super();
+        this.session = session;
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * Runs the game. It waits until the client joined, plays until it does not want to play again,
+     * leaves or does not answer within the turn timeout, and then closes the game.
+     */
+    public void run() {
+        if (!session.waitForPlayers()) {
+            return;
+        }
+        try {
+            player = session.getPlayer(0);
+            if (player == null) {
+                return;
+            }
+            player.setOnClientDisconnectedListener(this);
+            player.assignSide(1);
+            startGame();
+        } catch (CompletionException e) {
+            // The client left or did not answer in time while the game was waiting for it
+        } finally {
+            GameSessionManager.getInstance().remove(session);
+            if (player != null && player.isOpen()) {
+                player.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Makes a turn in the game.
+     * It requests the input of the client until the move is valid, or asks the bot service for the move of the bot.
+     */
+    @Override
+    protected void makeTurn() {
+        if (currentTurn == 2) {
+            int col = BotService.getInstance().requestMove(board, difficulty, BotService.DEFAULT_BUDGET).join();
+            board.putToken(col, currentTurn);
+            return;
+        }
+        int col = player.requestGameInput();
+        while (true) {
+            if (col < 0 || col >= Board.COLUMNS) {
+                player.wrongInput(InputErrorReason.COL_OUT_OF_BOUNDS);
+            } else if (!board.putToken(col, currentTurn)) {
+                player.wrongInput(InputErrorReason.COLUMN_FULL);
+            } else {
+                return;
+            }
+            col = player.requestGameInput();
+        }
+    }
+
+    /**
+     * Records the last move and sends the updated interface to the client and the spectators.
+     * @param cells The current state of the game board.
+     * @param currentTurn The current turn in the game.
+     */
+    @Override
+    public void updateUI(int[][] cells, int currentTurn) {
+        session.getMoveLog().record(board, currentTurn);
+        player.sendUI(board, currentTurn);
+        session.getSpectators().publishUI(board, currentTurn);
+    }
+
+    /**
+     * Sends the updated board to the client and the spectators.
+     * @param cells The current state of the game board.
+     */
+    @Override
+    public void updateBoard(int[][] cells) {
+        player.sendBoard(board);
+        session.getSpectators().publishBoard(cells);
+    }
+
+    /**
+     * Records the result in the move log and the record of the player, reports it for rating, and sends the winner of the game to the client and the spectators.
+     * @param victoryStatus The status of the victory.
+     */
+    @Override
+    public void announceWinner(int victoryStatus) {
+        session.getMoveLog().finish(board, victoryStatus);
+        player.recordGame(board, 1, victoryStatus);
+        RatingEngine.getInstance().submitBotGame(player.getPlayerId(), 1, difficulty, victoryStatus);
+        player.sendWinner(victoryStatus);
+        session.getSpectators().publishWinner(victoryStatus);
+    }
+
+    /**
+     * Asks the client if it wants to play again. The bot always does.
+     * @return A boolean indicating whether the client wants to play again.
+     */
+    @Override
+    public boolean playAgain() {
+        return player.requestPlayAgain();
+    }
+
+    /**
+     * Does nothing, the game is closed by {@link #run()} once it returns.
+     */
+    @Override
+    protected void quit() {
+    }
+
+    /**
+     * Handles the event of the client disconnecting by stopping the game.
+     */
+    @Override
+    public void onClientDisconnected() {
+        stopGame();
+    }
+}
@@ -1,20 +1,35 @@
 package org.Griffty.Controllers;
 
+import org.Griffty.AI.BotService;
+import org.Griffty.Listeners.ServerMessageListener;
+import org.Griffty.Network.GameSessionManager;
+import org.Griffty.Network.LobbyClientEndpoint;
+import org.Griffty.Network.Matchmaker;
 import org.Griffty.Network.WebSocketClientEndpoint;
 import org.Griffty.Network.WebSocketServer;
+import org.Griffty.Statistics.PlayerStatistics;
 import org.Griffty.Statistics.StatisticsHandler;
+import org.Griffty.UserInterface.IUserInterface;
 import org.Griffty.enums.InputErrorReason;
 import org.Griffty.enums.InputType;
 
 import java.net.URI;
+import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 
 /**
  * This class is responsible for controlling the game when playing on a client device.
- * It extends the AbstractGameController class and implements the startGame and requestGameInput methods.
+ * It extends the AbstractGameController class and implements the ServerMessageListener interface,
+ * so it gets the requests and updates of the server.
  */
-public class ClientDeviceGameController extends AbstractGameController{
+public class ClientDeviceGameController extends AbstractGameController implements ServerMessageListener {
+    /**
+     * The game id a client enters to play against a bot of the server.
+     */
+    public static final String BOT = "bot";
+    private final InputType inputType;
     private WebSocketClientEndpoint client;
+    private volatile int side;
     public CountDownLatch countdown;
 
     /**
@@ -23,21 +38,39 @@ public class ClientDeviceGameController extends AbstractGameController{
      */
     public ClientDeviceGameController(InputType inputType) {
         super(inputType);
+        this.inputType = inputType;
         startGame();
     }
 
     /**
      * Starts the game.
      * It connects to the server and waits for the countdown to finish.
+     * If the user entered the lobby instead of a game, it first waits in the lobby until an opponent is found.
+     * If the user entered "bot", it creates a game against a bot of the difficulty the user picks.
+     * The id of the player is sent along, so the server can keep the record of the player.
      * If the connection fails, it asks the user if they want to try another address.
      */
     @Override
     protected void startGame() {
         countdown = new CountDownLatch(1);
-        String address = "ws://" + UI.serverAddress() + ":" + WebSocketServer.PORT + "/connect-four/server";
-        URI uri = URI.create(address);
+        side = 2;
+        String[] input = UI.serverAddress().split("/", 2);
+        String server = "ws://" + input[0] + ":" + WebSocketServer.PORT + "/connect-four/";
+        String address = server + "server";
         try {
-            client = WebSocketClientEndpoint.connectToServer(this, uri);
+            if (input.length > 1 && input[1].equals(Matchmaker.LOBBY)) {
+                int rating = StatisticsHandler.getInstance().getCurrentStats().getRating();
+                input[1] = LobbyClientEndpoint.findMatch(URI.create(server + "lobby?" + Matchmaker.RATING_PARAMETER + "=" + rating
+                        + "&" + GameSessionManager.PLAYER_PARAMETER + "=" + StatisticsHandler.getInstance().getPlayerId()));
+            }
+            if (input.length > 1 && input[1].equals(BOT)) {
+                address += "?" + GameSessionManager.GAME_PARAMETER + "=" + BOT + "-" + UUID.randomUUID()
+                        + "&" + GameSessionManager.BOT_PARAMETER + "=" + getBotDifficulty();
+            } else if (input.length > 1) {
+                address += "?" + GameSessionManager.GAME_PARAMETER + "=" + input[1];
+            }
+            address += (address.contains("?") ? "&" : "?") + GameSessionManager.PLAYER_PARAMETER + "=" + StatisticsHandler.getInstance().getPlayerId();
+            client = WebSocketClientEndpoint.connectToServer(this, URI.create(address));
         } catch (Exception e) {
             UI.serverNotFound();
             if (UI.waitForConfirmation("Do you want to try another address?")) {
@@ -59,13 +92,41 @@ public class ClientDeviceGameController extends AbstractGameController{
         }
     }
 
+    /**
+     * Asks the user for the difficulty of a bot of the server.
+     * The graphical interface numbers its difficulties from 0 and the console from 1,
+     * while the server takes difficulties from 1 to {@link BotService#MAX_DIFFICULTY}.
+     * The bots of the server do not play perfectly, so the perfect difficulty gets the strongest bot.
+     * @return The difficulty of the bot, as the server takes it.
+     */
+    private int getBotDifficulty() {
+        int difficulty = UI.getDifficulty();
+        if (difficulty == IUserInterface.PERFECT_DIFFICULTY) {
+            return BotService.MAX_DIFFICULTY;
+        }
+        if (inputType == InputType.GUI) {
+            difficulty++;
+        }
+        return Math.max(1, Math.min(difficulty, BotService.MAX_DIFFICULTY));
+    }
+
+    /**
+     * Sets the side the user plays, as assigned by the server.
+     * Without an assignment the user plays yellow.
+     * @param side The side of the user, 1 for red and 2 for yellow.
+     */
+    public void assignSide(int side) {
+        this.side = side;
+        UI.setOnlineMode(side);
+    }
+
     /**
      * Requests game input from the user and sends it to the server.
      */
     public void requestGameInput() {
-        String input = String.valueOf(UI.getGameInput());
-        StatisticsHandler.getInstance().addMove();
-        client.respond("gameInput:" + input);
+        int input = UI.getGameInput();
+        StatisticsHandler.getInstance().addMove(input);
+        client.sendGameInput(input);
     }
 
     /**
@@ -75,10 +136,36 @@ public class ClientDeviceGameController extends AbstractGameController{
     @Override
     public boolean playAgain() {
         boolean decision = UI.waitForConfirmation("Do you want to play again?");
-        client.respond("playAgain:" + decision);
+        client.sendPlayAgain(decision);
         return decision;
     }
 
+    /**
+     * Asks the user if they want to play again when the server asks for it.
+     */
+    @Override
+    public void requestPlayAgain() {
+        playAgain();
+    }
+
+    /**
+     * Announces the winner of the game and adds the game to the statistics, as the result for the side of the user.
+     * @param victoryStatus The status of the victory.
+     */
+    @Override
+    public void announceWinner(int victoryStatus) {
+        StatisticsHandler.getInstance().addGame(PlayerStatistics.resultOf(victoryStatus, side));
+        super.announceWinner(victoryStatus);
+    }
+
+    /**
+     * Triggers the countdown once the connection to the server ended for good.
+     */
+    @Override
+    public void disconnected() {
+        countdown.countDown();
+    }
+
     /**
      * Throws an UnsupportedOperationException because this method should not be called from the client side.
      */
@@ -0,0 +1,145 @@
+package org.Griffty.Controllers;
+
+import org.Griffty.Board;
+import org.Griffty.Listeners.OnClientDisconnectedListener;
+import org.Griffty.Network.GameSession;
+import org.Griffty.Network.GameSessionManager;
+import org.Griffty.Network.WebSocketServerEndpoint;
+import org.Griffty.Statistics.RatingEngine;
+import org.Griffty.enums.InputErrorReason;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * This class is responsible for controlling a game hosted by the server between two clients.
+ * It has no local user interface: every update is sent to both clients and every move is requested over the network.
+ * The client in the first seat plays red, the client in the second seat plays yellow.
+ */
+public class HostedGameController extends AbstractGameController implements OnClientDisconnectedListener {
+    private final GameSession session;
+    private final WebSocketServerEndpoint[] players = new WebSocketServerEndpoint[3];
+
+    /**
+     * Constructor for the HostedGameController class.
+     * @param session The game to control.
+     */
+    public HostedGameController(GameSession session) {
+        super();
+        this.session = session;
+    }
+
+    /**
+     * Runs the game. It waits until both clients joined, plays until they do not want to play again,
+     * one of them leaves or one of them does not answer within the turn timeout, and then closes the game.
+     */
+    public void run() {
+        if (!session.waitForPlayers()) {
+            return;
+        }
+        try {
+            for (int side = 1; side <= 2; side++) {
+                players[side] = session.getPlayer(side - 1);
+                if (players[side] == null) {
+                    return;
+                }
+                players[side].setOnClientDisconnectedListener(this);
+                players[side].assignSide(side);
+            }
+            startGame();
+        } catch (CompletionException e) {
+            // A client left or did not answer in time while the game was waiting for it
+        } finally {
+            GameSessionManager.getInstance().remove(session);
+            for (int side = 1; side <= 2; side++) {
+                if (players[side] != null && players[side].isOpen()) {
+                    players[side].disconnect();
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes a turn in the game.
+     * It requests the input of the client whose turn it is until the move is valid.
+     */
+    @Override
+    protected void makeTurn() {
+        WebSocketServerEndpoint player = players[currentTurn];
+        int col = player.requestGameInput();
+        while (true) {
+            if (col < 0 || col >= Board.COLUMNS) {
+                player.wrongInput(InputErrorReason.COL_OUT_OF_BOUNDS);
+            } else if (!board.putToken(col, currentTurn)) {
+                player.wrongInput(InputErrorReason.COLUMN_FULL);
+            } else {
+                return;
+            }
+            col = player.requestGameInput();
+        }
+    }
+
+    /**
+     * Records the last move and sends the updated interface to both clients and the spectators.
+     * @param cells The current state of the game board.
+     * @param currentTurn The current turn in the game.
+     */
+    @Override
+    public void updateUI(int[][] cells, int currentTurn) {
+        session.getMoveLog().record(board, currentTurn);
+        for (int side = 1; side <= 2; side++) {
+            players[side].sendUI(board, currentTurn);
+        }
+        session.getSpectators().publishUI(board, currentTurn);
+    }
+
+    /**
+     * Sends the updated board to both clients and the spectators.
+     * @param cells The current state of the game board.
+     */
+    @Override
+    public void updateBoard(int[][] cells) {
+        for (int side = 1; side <= 2; side++) {
+            players[side].sendBoard(board);
+        }
+        session.getSpectators().publishBoard(cells);
+    }
+
+    /**
+     * Records the result in the move log and the records of the players, reports it for rating, and sends the winner of the game to both clients and the spectators.
+     * @param victoryStatus The status of the victory.
+     */
+    @Override
+    public void announceWinner(int victoryStatus) {
+        session.getMoveLog().finish(board, victoryStatus);
+        for (int side = 1; side <= 2; side++) {
+            players[side].recordGame(board, side, victoryStatus);
+            players[side].sendWinner(victoryStatus);
+        }
+        RatingEngine.getInstance().submitGame(players[1].getPlayerId(), players[2].getPlayerId(), victoryStatus);
+        session.getSpectators().publishWinner(victoryStatus);
+    }
+
+    /**
+     * Asks both clients if they want to play again.
+     * @return A boolean indicating whether both clients want to play again.
+     */
+    @Override
+    public boolean playAgain() {
+        return players[1].requestPlayAgain() && players[2].requestPlayAgain();
+    }
+
+    /**
+     * Does nothing, the game is closed by {@link #run()} once it returns.
+     */
+    @Override
+    protected void quit() {
+    }
+
+    /**
+     * Handles the event of a client disconnecting by stopping the game.
+     */
+    @Override
+    public void onClientDisconnected() {
+        stopGame();
+    }
+}
@@ -0,0 +1,75 @@
+package org.Griffty.Controllers;
+
+import org.Griffty.Statistics.GameRecord;
+import org.Griffty.enums.InputType;
+
+/**
+ * This class is responsible for replaying a game from the game archive.
+ * It plays the moves of the record one after the other, showing the board after every move,
+ * and then announces the winner.
+ */
+public class ReplayController extends AbstractGameController {
+    /**
+     * The number of milliseconds between two moves.
+     */
+    public static final long MOVE_DELAY = 800;
+    private final GameRecord record;
+    private int nextMove;
+
+    /**
+     * Constructor for the ReplayController class.
+     * @param inputType The type of user interface to use for the replay.
+     * @param record The record of the game to replay.
+     */
+    public ReplayController(InputType inputType, GameRecord record) {
+        super(inputType);
+        this.record = record;
+        startGame();
+    }
+
+    /**
+     * Chooses the side that moved first in the recorded game.
+     * @return The side that moves first.
+     */
+    @Override
+    protected int chooseFirstTurn() {
+        nextMove = 0;
+        return record.getFirstTurn();
+    }
+
+    /**
+     * Makes the next move of the recorded game, after a short pause.
+     * If the record has no more moves, the replay is stopped.
+     */
+    @Override
+    protected void makeTurn() {
+        if (nextMove == record.getMoveCount()) {
+            stopGame();
+            return;
+        }
+        try {
+            Thread.sleep(MOVE_DELAY);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        board.putToken(record.getMove(nextMove++), currentTurn);
+    }
+
+    /**
+     * Does nothing, since the replayed game is already in the archive.
+     * @param firstTurn The side that moved first.
+     * @param victoryStatus The status of the victory.
+     */
+    @Override
+    protected void archiveGame(int firstTurn, int victoryStatus) {
+    }
+
+    /**
+     * Ends the replay after the winner was announced.
+     * @return false, since a replay is not played again.
+     */
+    @Override
+    public boolean playAgain() {
+        return false;
+    }
+}
@@ -1,13 +1,19 @@
 package org.Griffty.Controllers;
 
+import org.Griffty.Network.GameSession;
+import org.Griffty.Network.GameSessionManager;
 import org.Griffty.Network.WebSocketServerEndpoint;
 import org.Griffty.Network.WebSocketServer;
 import org.Griffty.Listeners.OnClientDisconnectedListener;
+import org.Griffty.Statistics.PlayerStatistics;
+import org.Griffty.Statistics.PlayerStore;
+import org.Griffty.Statistics.RatingEngine;
 import org.Griffty.Statistics.StatisticsHandler;
 import org.Griffty.enums.InputErrorReason;
 import org.Griffty.enums.InputType;
 
 import java.util.List;
+import java.util.concurrent.CompletionException;
 
 /**
  * This class is responsible for controlling the game when playing on a server device.
@@ -15,7 +21,8 @@ import java.util.List;
  */
 public class ServerDeviceGameController extends AbstractGameController implements OnClientDisconnectedListener {
     private final WebSocketServer server;
-    private WebSocketServerEndpoint connection;
+    private final GameSession session;
+    private volatile WebSocketServerEndpoint connection;
     private List<String> IPs;
 
     /**
@@ -25,6 +32,7 @@ public class ServerDeviceGameController extends AbstractGameController implement
     public ServerDeviceGameController(InputType inputType) {
         super(inputType);
         server = WebSocketServer.getInstance();
+        session = GameSessionManager.getInstance().open(GameSessionManager.DEFAULT_GAME_ID, 1);
         if (launchServer()){
             startGame();
         }else {
@@ -46,26 +54,38 @@ public class ServerDeviceGameController extends AbstractGameController implement
     /**
      * Starts the game.
      * It waits for a client to connect and then starts the game.
+     * If the client disconnects during the game, it waits for another client.
      */
     @Override
     protected void startGame() {
-        server.waitForClient();
-        connection = server.getActiveConnection();
-        connection.setOnClientDisconnectedListener(this);
-        UI.setOnlineMode(1);
-        super.startGame();
+        while (true) {
+            session.waitForPlayers();
+            connection = session.getPlayer(0);
+            if (connection == null) {
+                continue;
+            }
+            connection.setOnClientDisconnectedListener(this);
+            forceStop = false;
+            UI.setOnlineMode(1);
+            super.startGame();
+            if (connection.isOpen()) {
+                return;
+            }
+            UI.showConnectionInfo(IPs, server.getPort());
+        }
     }
 
     /**
      * Makes a turn in the game.
      * If it's the server's turn, it calls the serverTurn method.
      * If it's the client's turn, it calls the clientTurn method.
+     * If the client is gone, it stops the game.
      */
     @Override
     protected void makeTurn() {
-        connection = server.getActiveConnection();
-        if (connection == null){
-            clientDisconnected();
+        if (!connection.isOpen()) {
+            stopGame();
+            return;
         }
         if (currentTurn == 1) {
             serverTurn();
@@ -75,63 +95,81 @@ public class ServerDeviceGameController extends AbstractGameController implement
     }
 
     /**
-     * Handles the event of a client disconnecting.
-     * It stops the game and then starts it again.
+     * Disconnects the client on purpose, without treating it as the client leaving the game.
      */
-    public void clientDisconnected() {
-        UI.userDisconnected();
-        stopGame();
-        forceStop = false;
-        UI.showConnectionInfo(IPs, server.getPort());
-        startGame();
+    private void dropClient() {
+        connection.setOnClientDisconnectedListener(null);
+        connection.disconnect();
+        session.leave(connection);
     }
 
     /**
      * Makes a turn for the server.
      * It gets the server's input and tries to make a move.
      * If the move is not valid, it asks for the server's input again.
+     * The valid move is added to the statistics.
      */
     private void serverTurn() {
         int col = UI.getGameInput();
         while (!board.putToken(col, currentTurn)){
             UI.wrongInput(InputErrorReason.COLUMN_FULL);
             col = UI.getGameInput();
-            StatisticsHandler.getInstance().addMove();
         }
+        StatisticsHandler.getInstance().addMove(col);
     }
 
     /**
      * Makes a turn for the client.
      * It requests the client's input and tries to make a move.
      * If the move is not valid, it asks for the client's input again.
+     * If the client does not move within the turn timeout, it is disconnected.
      */
     private void clientTurn() {
-        int col = connection.requestGameInput();
-        while (!board.putToken(col, currentTurn)){
-            connection.wrongInput(InputErrorReason.COLUMN_FULL);
-            col = connection.requestGameInput();
+        try {
+            int col = connection.requestGameInput();
+            while (!board.putToken(col, currentTurn)){
+                connection.wrongInput(InputErrorReason.COLUMN_FULL);
+                col = connection.requestGameInput();
+            }
+        } catch (CompletionException e) {
+            dropSilentClient();
+            stopGame();
         }
     }
 
     /**
-     * Updates the user interface and sends the updated interface to the client.
+     * Disconnects the client if it is still in the game although a request to it failed,
+     * which means it did not answer within the turn timeout.
+     */
+    private void dropSilentClient() {
+        if (connection.isOpen()) {
+            UI.userDisconnected();
+            dropClient();
+        }
+    }
+
+    /**
+     * Updates the user interface, records the last move and sends the updated interface to the client and the spectators.
      * @param cells The current state of the game board.
      * @param currentTurn The current turn in the game.
      */
     @Override
     public void updateUI(int[][] cells, int currentTurn) {
         super.updateUI(cells, currentTurn);
-        connection.sendUI(cells, currentTurn);
+        session.getMoveLog().record(board, currentTurn);
+        connection.sendUI(board, currentTurn);
+        session.getSpectators().publishUI(board, currentTurn);
     }
 
     /**
-     * Updates the game board and sends the updated board to the client.
+     * Updates the game board and sends the updated board to the client and the spectators.
      * @param cells The current state of the game board.
      */
     @Override
     public void updateBoard(int[][] cells) {
         super.updateBoard(cells);
         connection.sendBoard(board);
+        session.getSpectators().publishBoard(cells);
     }
 
     /**
@@ -143,33 +181,46 @@ public class ServerDeviceGameController extends AbstractGameController implement
         boolean serverAgain = super.playAgain();
         if (!serverAgain)
         {
-            connection.disconnect();
+            dropClient();
             return true;
         }
-        if (connection.requestPlayAgain()){
+        try {
+            if (connection.requestPlayAgain()){
+                return true;
+            }
+        } catch (CompletionException e) {
+            dropSilentClient();
             return true;
-        }else {
-            connection.disconnect();
-            return false;
         }
+        dropClient();
+        return false;
     }
 
     /**
-     * Announces the winner of the game and sends the winner to the client.
+     * Announces the winner of the game, records it in the statistics, the move log and the records of the client
+     * and the user on this server, reports it for rating, and sends the winner to the client and the spectators.
      * @param victoryStatus The status of the victory.
      */
     @Override
     public void announceWinner(int victoryStatus) {
-        StatisticsHandler.getInstance().addGame(victoryStatus);
+        StatisticsHandler.getInstance().addGame(PlayerStatistics.resultOf(victoryStatus, 1));
         super.announceWinner(victoryStatus);
+        session.getMoveLog().finish(board, victoryStatus);
+        connection.recordGame(board, 2, victoryStatus);
+        String host = StatisticsHandler.getInstance().getPlayerId();
+        PlayerStore.getInstance().addGame(host, board, 1, victoryStatus);
+        RatingEngine.getInstance().submitGame(host, connection.getPlayerId(), victoryStatus);
         connection.sendWinner(victoryStatus);
+        session.getSpectators().publishWinner(victoryStatus);
     }
 
     /**
-     * Handles the event of a client disconnecting.
+     * Handles the event of a client leaving the game, either on purpose or by not coming back within the grace period.
+     * It tells the user and stops the game, which then waits for another client.
      */
     @Override
     public void onClientDisconnected() {
-        clientDisconnected();
+        UI.userDisconnected();
+        stopGame();
     }
 }
\ No newline at end of file
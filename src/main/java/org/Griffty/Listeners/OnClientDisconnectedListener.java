@@ -7,6 +7,7 @@ package org.Griffty.Listeners;
 public interface OnClientDisconnectedListener {
     /**
      * This method is called when a client disconnects from the server.
+     * A client that loses its connection is only treated as disconnected once it did not resume within the grace period.
      * The classes that implement this interface should define what should happen when a client disconnects.
      */
     void onClientDisconnected();
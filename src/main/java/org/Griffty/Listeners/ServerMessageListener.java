@@ -0,0 +1,59 @@
+package org.Griffty.Listeners;
+
+import org.Griffty.enums.InputErrorReason;
+
+/**
+ * This interface defines a listener for the messages of the game server.
+ * It is used by the WebSocket client endpoint to hand the requests and updates of the server to the player on the client side,
+ * whether that is a user or a simulated player.
+ */
+public interface ServerMessageListener {
+    /**
+     * This method is called when the server tells the client which side it plays.
+     * @param side The side of the client, 1 for red and 2 for yellow.
+     */
+    void assignSide(int side);
+
+    /**
+     * This method is called when the server asks for the next move.
+     * The classes that implement this interface should answer with the move of the player.
+     */
+    void requestGameInput();
+
+    /**
+     * This method is called when the server asks whether to play again.
+     * The classes that implement this interface should answer with the decision of the player.
+     */
+    void requestPlayAgain();
+
+    /**
+     * This method is called when the server rejected the last move.
+     * @param errorReason The reason why the move was rejected.
+     */
+    void wrongInput(InputErrorReason errorReason);
+
+    /**
+     * This method is called when the board changed before a turn.
+     * @param cells The current state of the game board.
+     * @param currentTurn The current turn in the game.
+     */
+    void updateUI(int[][] cells, int currentTurn);
+
+    /**
+     * This method is called with the final board of a game.
+     * @param cells The final state of the game board, with the winning tokens highlighted.
+     */
+    void updateBoard(int[][] cells);
+
+    /**
+     * This method is called when a game is over.
+     * @param victoryStatus The status of the victory.
+     */
+    void announceWinner(int victoryStatus);
+
+    /**
+     * This method is called when the connection to the server ended for good,
+     * either because the server closed it or because the client could not reconnect.
+     */
+    void disconnected();
+}
@@ -1,12 +1,25 @@
 package org.Griffty;
 
+import org.Griffty.AI.BotService;
+import org.Griffty.AI.OpeningBook;
+import org.Griffty.AI.OpeningBookGenerator;
+import org.Griffty.Network.GameSessionManager;
+import org.Griffty.Network.Heartbeat;
+import org.Griffty.Network.WebSocketServer;
+import org.Griffty.Statistics.GameArchive;
+import org.Griffty.Statistics.GameRecord;
+import org.Griffty.Statistics.RatingEngine;
 import org.Griffty.Statistics.StatisticsHandler;
+import org.Griffty.Util.GameExecutors;
+import org.Griffty.Util.ProgramFolder;
 import org.Griffty.Util.Dialogs.ChoiceDialog;
 import org.Griffty.Util.Dialogs.DialogFactory;
 import org.Griffty.enums.InputType;
 import org.Griffty.Controllers.*;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
+import java.nio.file.Paths;
 
 import static org.Griffty.enums.InputType.CLI;
 import static org.Griffty.enums.InputType.GUI;
@@ -16,12 +29,18 @@ import static org.Griffty.enums.InputType.GUI;
  * It handles the game's launch options and starts the appropriate game controller based on the chosen option.
  */
 public class Main {
+    private static final int BOOK_TABLE_SIZE_MB = 512;
+    private static final String LATENCY_FILE = "latency.json";
+    private static final String BOT_METRICS_FILE = "bots.json";
+    private static final String LEADERBOARD_FILE = "leaderboard.json";
+    private static final long METRICS_EXPORT_INTERVAL = 60_000;
+
     /**
      * The main method of the Connect Four game.
      * It determines the game type (CLI or GUI), parses the launch option, and starts the appropriate game controller.
      * @param args the command-line arguments.
      */
-    public static void main(String[] args) throws NoSuchMethodException {
+    public static void main(String[] args) throws NoSuchMethodException, IOException {
         InputType gameType = GUI;
         if (System.console() != null){
             gameType = CLI;
@@ -62,12 +81,22 @@ public class Main {
             case "-b":
                 new AIGameController(gameType);
                 break;
+            case "--server":
+                runServer(args);
+                break;
             case "--help":
                 printHelp();
                 break;
             case "--clear-stats":
                 StatisticsHandler.getInstance().clearStats();
                 break;
+            case "--replay":
+                replay(gameType, args);
+                break;
+            case "--generate-book":
+                int plies = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+                new OpeningBookGenerator(plies, BOOK_TABLE_SIZE_MB).generate(Paths.get(ProgramFolder.resolve(OpeningBook.DEFAULT_FILE)));
+                break;
 
             default:
                 printHelp();
@@ -75,6 +104,64 @@ public class Main {
         }
     }
 
+    /**
+     * This method runs a dedicated server that hosts games between clients until the program is stopped.
+     * Every client names the game it joins, and a game starts once two clients joined it.
+     * Every minute the round trip times of the players are written to the latency file in the program folder,
+     * the queue depth and compute times of the bots to the bot metrics file, and the best players to the leaderboard file.
+     * @param args The command-line arguments: the threads that run the games, "virtual" or "platform",
+     *             and the idle and turn timeouts in seconds.
+     */
+    private static void runServer(String[] args) {
+        String threads = GameExecutors.VIRTUAL;
+        long idleTimeout = Heartbeat.DEFAULT_IDLE_TIMEOUT;
+        long turnTimeout = GameSessionManager.DEFAULT_TURN_TIMEOUT;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--idle-timeout" -> idleTimeout = Long.parseLong(args[++i]) * 1000;
+                case "--turn-timeout" -> turnTimeout = Long.parseLong(args[++i]) * 1000;
+                default -> threads = args[i];
+            }
+        }
+        GameSessionManager manager = GameSessionManager.getInstance();
+        manager.setGameExecutor(GameExecutors.newGameExecutor(threads));
+        manager.setTimeouts(idleTimeout, turnTimeout);
+        manager.setHosting(true);
+        RatingEngine ratings = RatingEngine.getInstance();
+        GameArchive.getInstance();
+        WebSocketServer.getInstance();
+        if (threads.equals(GameExecutors.VIRTUAL) && !GameExecutors.isVirtualThreadSupported()) {
+            System.out.println("Virtual threads need Java 21, running games on platform threads");
+        }
+        System.out.println("Hosting games on port " + WebSocketServer.PORT + ", press Ctrl+C to stop");
+        try {
+            while (true) {
+                Thread.sleep(METRICS_EXPORT_INTERVAL);
+                manager.exportLatencies(ProgramFolder.resolve(LATENCY_FILE));
+                BotService.getInstance().exportMetrics(ProgramFolder.resolve(BOT_METRICS_FILE));
+                ratings.exportLeaderboard(ProgramFolder.resolve(LEADERBOARD_FILE), RatingEngine.LEADERBOARD_SIZE);
+            }
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * This method replays a game from the game archive in the program folder.
+     * @param gameType The type of user interface to replay the game on.
+     * @param args The command-line arguments: the number of the game, or none for the last game.
+     */
+    private static void replay(InputType gameType, String[] args) {
+        GameArchive archive = GameArchive.getInstance();
+        long game = args.length > 1 ? Long.parseLong(args[1]) : archive.getGameCount() - 1;
+        GameRecord record = game >= 0 ? archive.read(game) : null;
+        if (record == null) {
+            System.out.println("Game " + game + " is not in the archive, which holds " + archive.getGameCount() + " games");
+            System.exit(1);
+        }
+        new ReplayController(gameType, record);
+    }
+
     /**
      * This method parses the launch option chosen by the user in the GUI.
      * @param join the choice made by the user in the GUI.
@@ -104,6 +191,16 @@ public class Main {
                     <-s | --solo> start game on this computer
                     <-h | --host> host game for people in local network
                     <-j | --join> join other people in local network
-                    <-b | --bot> play against computer""");
+                                  (enter <address>/<game> to join a game on a dedicated server,
+                                  <address>/lobby to be matched with a player of similar rating,
+                                  or <address>/bot to play against a bot of the server)
+                    <--server [virtual | platform] [--idle-timeout <s>] [--turn-timeout <s>]>
+                                  run a dedicated server that hosts many games between clients,
+                                  each game on a virtual thread (default) or a platform thread;
+                                  connections silent for the idle timeout (default 15) are dropped,
+                                  and players that do not move within the turn timeout (default 300) are disconnected
+                    <-b | --bot> play against computer
+                    <--replay [game]> replay a finished game, the last one by default
+                    <--generate-book [plies]> solve the openings for the bot (takes hours)""");
     }
 }
\ No newline at end of file
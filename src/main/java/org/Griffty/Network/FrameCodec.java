@@ -0,0 +1,287 @@
+package org.Griffty.Network;
+
+import org.Griffty.Board;
+import org.Griffty.enums.InputErrorReason;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class encodes and decodes the binary frames of the game protocol.
+ * <p>
+ * A frame is an opcode byte followed by the payload of that opcode. A board takes 11 bytes:
+ * every cell is stored in 2 bits, row by row from the top left, so the highlighted winning cells (3) fit as well.
+ * <p>
+ * Binary frames are only used after both sides agreed on them. A client that supports them sends
+ * "hello:&lt;version&gt;" as text, and the server answers with the version both sides support.
+ * Clients that never say hello keep getting the text messages.
+ * <p>
+ * From version {@value #DELTA_VERSION} on, the board is not sent before every turn any more. The client gets a
+ * {@link #SNAPSHOT} when it joins, when a game starts and when it asks for one, and a {@link #MOVE} after every move.
+ * Every move carries its sequence number, the number of tokens on the board after it. A client that misses a move
+ * sees a gap in the sequence, sends {@link #RESYNC} and ignores moves until the next snapshot.
+ * <p>
+ * Every codec owns one buffer that all encode methods write into and return, so encoding does not allocate.
+ * The returned buffer is only valid until the next call, so a codec must not be used by two threads at once.
+ */
+public class FrameCodec {
+    /**
+     * The newest version of the binary protocol.
+     */
+    public static final int VERSION = 2;
+    /**
+     * The first version of the binary protocol that sends moves instead of whole boards.
+     */
+    public static final int DELTA_VERSION = 2;
+    /**
+     * The text message that starts the negotiation of the binary protocol.
+     */
+    public static final String HELLO = "hello";
+
+    /**
+     * Server to client: asks for the next move.
+     */
+    public static final byte REQUEST_GAME_INPUT = 1;
+    /**
+     * Server to client: asks whether to play again.
+     */
+    public static final byte REQUEST_PLAY_AGAIN = 2;
+    /**
+     * Server to client: the move was invalid, followed by the ordinal of the {@link InputErrorReason}.
+     */
+    public static final byte WRONG_INPUT = 3;
+    /**
+     * Server to client: the turn and the board before a move.
+     */
+    public static final byte UPDATE_UI = 4;
+    /**
+     * Server to client: the board at the end of a game.
+     */
+    public static final byte UPDATE_BOARD = 5;
+    /**
+     * Server to client: the victory status as a signed byte.
+     */
+    public static final byte ANNOUNCE_WINNER = 6;
+    /**
+     * Server to client: the side the client plays.
+     */
+    public static final byte ASSIGN_SIDE = 7;
+    /**
+     * Client to server: the column of the move.
+     */
+    public static final byte GAME_INPUT = 8;
+    /**
+     * Client to server: 1 to play again, 0 to stop.
+     */
+    public static final byte PLAY_AGAIN = 9;
+    /**
+     * Server to client: the column, the side and the sequence number of a move.
+     */
+    public static final byte MOVE = 10;
+    /**
+     * Server to client: the sequence number, the turn and the whole board.
+     */
+    public static final byte SNAPSHOT = 11;
+    /**
+     * Client to server: the client missed a move and needs a snapshot.
+     */
+    public static final byte RESYNC = 12;
+
+    /**
+     * The number of bytes of a packed board.
+     */
+    public static final int BOARD_BYTES = (Board.ROWS * Board.COLUMNS * 2 + 7) / 8;
+    private static final int MAX_FRAME_BYTES = 3 + BOARD_BYTES;
+    private static final InputErrorReason[] ERROR_REASONS = InputErrorReason.values();
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(MAX_FRAME_BYTES);
+
+    /**
+     * This method encodes a frame without payload.
+     * @param opcode The opcode of the frame.
+     * @return The frame, ready to be sent.
+     */
+    public ByteBuffer encode(byte opcode) {
+        buffer.clear();
+        buffer.put(opcode);
+        return buffer.flip();
+    }
+
+    /**
+     * This method encodes a frame with a payload of one byte.
+     * @param opcode The opcode of the frame.
+     * @param value The payload.
+     * @return The frame, ready to be sent.
+     */
+    public ByteBuffer encode(byte opcode, int value) {
+        buffer.clear();
+        buffer.put(opcode);
+        buffer.put((byte) value);
+        return buffer.flip();
+    }
+
+    /**
+     * This method encodes a frame that tells the client about a wrong input.
+     * @param reason The reason why the input is wrong.
+     * @return The frame, ready to be sent.
+     */
+    public ByteBuffer encodeWrongInput(InputErrorReason reason) {
+        return encode(WRONG_INPUT, reason.ordinal());
+    }
+
+    /**
+     * This method encodes a frame that updates the user interface of the client.
+     * @param currentTurn The current turn of the game.
+     * @param cells The cells of the game.
+     * @return The frame, ready to be sent.
+     */
+    public ByteBuffer encodeUI(int currentTurn, int[][] cells) {
+        buffer.clear();
+        buffer.put(UPDATE_UI);
+        buffer.put((byte) currentTurn);
+        putCells(buffer, cells);
+        return buffer.flip();
+    }
+
+    /**
+     * This method encodes a frame that updates the board of the client.
+     * @param cells The cells of the game.
+     * @return The frame, ready to be sent.
+     */
+    public ByteBuffer encodeBoard(int[][] cells) {
+        buffer.clear();
+        buffer.put(UPDATE_BOARD);
+        putCells(buffer, cells);
+        return buffer.flip();
+    }
+
+    /**
+     * This method encodes a frame with a move.
+     * @param col The column of the move.
+     * @param side The side that made the move.
+     * @param sequence The number of tokens on the board after the move.
+     * @return The frame, ready to be sent.
+     */
+    public ByteBuffer encodeMove(int col, int side, int sequence) {
+        buffer.clear();
+        buffer.put(MOVE);
+        buffer.put((byte) col);
+        buffer.put((byte) side);
+        buffer.put((byte) sequence);
+        return buffer.flip();
+    }
+
+    /**
+     * This method encodes a frame with the whole state of the game.
+     * @param sequence The number of tokens on the board.
+     * @param currentTurn The current turn of the game.
+     * @param cells The cells of the game.
+     * @return The frame, ready to be sent.
+     */
+    public ByteBuffer encodeSnapshot(int sequence, int currentTurn, int[][] cells) {
+        buffer.clear();
+        buffer.put(SNAPSHOT);
+        buffer.put((byte) sequence);
+        buffer.put((byte) currentTurn);
+        putCells(buffer, cells);
+        return buffer.flip();
+    }
+
+    /**
+     * This method reads the opcode of a frame.
+     * @param frame The frame, positioned at its start.
+     * @return The opcode.
+     */
+    public static byte readOpcode(ByteBuffer frame) {
+        return frame.get();
+    }
+
+    /**
+     * This method reads a payload of one unsigned byte.
+     * @param frame The frame, positioned after the opcode.
+     * @return The payload.
+     */
+    public static int readByte(ByteBuffer frame) {
+        return frame.get() & 0xFF;
+    }
+
+    /**
+     * This method reads a payload of one signed byte, like the victory status, which is -1 for a draw.
+     * @param frame The frame, positioned after the opcode.
+     * @return The payload.
+     */
+    public static int readSignedByte(ByteBuffer frame) {
+        return frame.get();
+    }
+
+    /**
+     * This method reads the reason of a wrong input.
+     * @param frame The frame, positioned after the opcode.
+     * @return The reason why the input was wrong.
+     */
+    public static InputErrorReason readErrorReason(ByteBuffer frame) {
+        return ERROR_REASONS[readByte(frame)];
+    }
+
+    /**
+     * This method reads a packed board.
+     * @param frame The frame, positioned at the board.
+     * @return The cells of the board.
+     */
+    public static int[][] readCells(ByteBuffer frame) {
+        int[][] cells = new int[Board.ROWS][Board.COLUMNS];
+        int bits = 0;
+        int bitCount = 0;
+        for (int[] row : cells) {
+            for (int col = 0; col < row.length; col++) {
+                if (bitCount == 0) {
+                    bits = frame.get() & 0xFF;
+                    bitCount = 8;
+                }
+                bitCount -= 2;
+                row[col] = (bits >>> bitCount) & 3;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * This method packs the cells of a board into a buffer, 2 bits per cell.
+     * @param buffer The buffer to write to.
+     * @param cells The cells of the board.
+     */
+    private static void putCells(ByteBuffer buffer, int[][] cells) {
+        int bits = 0;
+        int bitCount = 0;
+        for (int[] row : cells) {
+            for (int cell : row) {
+                bits = bits << 2 | cell;
+                bitCount += 2;
+                if (bitCount == 8) {
+                    buffer.put((byte) bits);
+                    bits = 0;
+                    bitCount = 0;
+                }
+            }
+        }
+        if (bitCount > 0) {
+            buffer.put((byte) (bits << 8 - bitCount));
+        }
+    }
+
+    /**
+     * This method picks the version of the binary protocol both sides support.
+     * @param hello The hello message of the other side.
+     * @return The version to use, or 0 if the message is not a valid hello.
+     */
+    public static int negotiate(String hello) {
+        String[] split = hello.split(":");
+        if (split.length != 2 || !split[0].equals(HELLO)) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Math.min(VERSION, Integer.parseInt(split[1])));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package org.Griffty.Network;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class represents one game hosted by the server.
+ * It holds the connections of the players that joined the game, each in its own seat.
+ * <p>
+ * All state of a game lives in its session, so games do not share anything with each other.
+ * The seats are guarded by a lock of the session, which keeps them consistent while players join and leave.
+ * It is a {@link ReentrantLock} rather than a monitor, so a game waiting for players on a virtual thread
+ * does not pin the carrier thread.
+ * <p>
+ * A player that loses its connection keeps its seat for {@link GameSessionManager#RESUME_GRACE_PERIOD} milliseconds.
+ * When it comes back with its resume token, it is sent the moves of the {@link MoveLog} it missed.
+ */
+public class GameSession {
+    private final String id;
+    private final WebSocketServerEndpoint[] seats;
+    private final boolean hosted;
+    private final SpectatorFeed spectators = new SpectatorFeed();
+    private final MoveLog moveLog = new MoveLog();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition seatsChanged = lock.newCondition();
+    private boolean closed;
+
+    /**
+     * Constructor for the GameSession class.
+     * @param id The id of the game.
+     * @param seats The number of players that connect over the network.
+     * @param hosted true if the server runs the game on its own, false if a local player hosts it.
+     */
+    public GameSession(String id, int seats, boolean hosted) {
+        this.id = id;
+        this.seats = new WebSocketServerEndpoint[seats];
+        this.hosted = hosted;
+    }
+
+    /**
+     * This method is used to get the id of the game.
+     * @return The id of the game.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * This method is used to check whether the server runs the game on its own.
+     * @return true if the game is hosted by the server, false if a local player hosts it.
+     */
+    public boolean isHosted() {
+        return hosted;
+    }
+
+    /**
+     * This method is used to get the feed that sends the game to its spectators.
+     * @return The spectator feed of the game.
+     */
+    public SpectatorFeed getSpectators() {
+        return spectators;
+    }
+
+    /**
+     * This method is used to get the log of the moves of the current game.
+     * @return The move log of the game.
+     */
+    public MoveLog getMoveLog() {
+        return moveLog;
+    }
+
+    /**
+     * This method is used to take the first free seat of the game.
+     * @param connection The connection of the joining player.
+     * @return The index of the seat, or -1 if the game is full or closed.
+     */
+    public int join(WebSocketServerEndpoint connection) {
+        lock.lock();
+        try {
+            if (closed) {
+                return -1;
+            }
+            for (int i = 0; i < seats.length; i++) {
+                if (seats[i] == null) {
+                    seats[i] = connection;
+                    seatsChanged.signalAll();
+                    return i;
+                }
+            }
+            return -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method is used to free the seat of a player that left the game.
+     * @param connection The connection of the leaving player.
+     */
+    public void leave(WebSocketServerEndpoint connection) {
+        lock.lock();
+        try {
+            for (int i = 0; i < seats.length; i++) {
+                if (seats[i] == connection) {
+                    seats[i] = null;
+                }
+            }
+            seatsChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method is used to get the player in a seat.
+     * @param seat The index of the seat.
+     * @return The connection of the player, or null if the seat is free.
+     */
+    public WebSocketServerEndpoint getPlayer(int seat) {
+        lock.lock();
+        try {
+            return seats[seat];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method is used to find the player that was given a resume token.
+     * @param resumeToken The resume token of the player.
+     * @return The connection of the player, or null if no player in the game has this token.
+     */
+    public WebSocketServerEndpoint getPlayer(String resumeToken) {
+        lock.lock();
+        try {
+            for (WebSocketServerEndpoint seat : seats) {
+                if (seat != null && seat.hasResumeToken(resumeToken)) {
+                    return seat;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method is used to get the round trip times of the players in the game.
+     * @return The latency histogram of every taken seat, by the index of the seat.
+     */
+    public Map<String, LatencyHistogram.Snapshot> getLatencies() {
+        Map<String, LatencyHistogram.Snapshot> latencies = new TreeMap<>();
+        lock.lock();
+        try {
+            for (int i = 0; i < seats.length; i++) {
+                if (seats[i] != null) {
+                    latencies.put(String.valueOf(i), seats[i].getLatency().snapshot());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return latencies;
+    }
+
+    /**
+     * This method is used to check whether every seat is taken.
+     * @return true if the game is full.
+     */
+    public boolean isFull() {
+        lock.lock();
+        try {
+            for (WebSocketServerEndpoint seat : seats) {
+                if (seat == null) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method is used to check whether every seat is free.
+     * @return true if no player is connected.
+     */
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            for (WebSocketServerEndpoint seat : seats) {
+                if (seat != null) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method is used to wait until every seat is taken.
+     * @return true if every seat is taken, false if the game was closed while waiting.
+     */
+    public boolean waitForPlayers() {
+        lock.lock();
+        try {
+            while (!closed && !isFull()) {
+                seatsChanged.await();
+            }
+            return !closed;
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method is used to close the game. No player can join a closed game, and the spectators are disconnected.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            seatsChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        spectators.close();
+    }
+
+    /**
+     * This method is used to check whether the game is closed.
+     * @return true if the game is closed.
+     */
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
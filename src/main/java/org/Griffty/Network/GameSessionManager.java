@@ -0,0 +1,292 @@
+package org.Griffty.Network;
+
+import com.google.gson.Gson;
+import org.Griffty.Controllers.BotGameController;
+import org.Griffty.Controllers.HostedGameController;
+import org.Griffty.Util.GameExecutors;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * This class keeps track of the games hosted by the server and routes every connection to its game by the game id.
+ * It uses the Singleton design pattern to ensure only one instance of this class is created.
+ * <p>
+ * A client picks its game with the query parameter "game", for example "/connect-four/server?game=42".
+ * Clients that do not name a game join {@link #DEFAULT_GAME_ID}.
+ * <p>
+ * A game is either opened by a local host, who then plays against one client, or, when hosting is enabled,
+ * created by the first client that names it. Such a game is played by two clients and run by a
+ * {@link HostedGameController} on the game executor, which by default gives every game a virtual thread.
+ * <p>
+ * A client that names a game with "&amp;bot=&lt;difficulty&gt;" creates a game against a bot instead, with a difficulty
+ * from 1 to {@link org.Griffty.AI.BotService#MAX_DIFFICULTY}. Other difficulties are refused. The game is run by a {@link BotGameController} and gets its moves from the {@link org.Griffty.AI.BotService}.
+ * <p>
+ * Clients that do not know whom to play can wait in the lobby, where the {@link Matchmaker} pairs them into hosted games.
+ * <p>
+ * Every player is sent a resume token when it joins. A player whose connection drops can take its seat back
+ * within {@link #RESUME_GRACE_PERIOD} by connecting with "?game=42&amp;resume=&lt;token&gt;&amp;seq=&lt;last move&gt;".
+ */
+public class GameSessionManager {
+    /**
+     * The id of the game joined by clients that do not name one.
+     */
+    public static final String DEFAULT_GAME_ID = "default";
+    /**
+     * The name of the query parameter that holds the game id.
+     */
+    public static final String GAME_PARAMETER = "game";
+    /**
+     * The name of the query parameter that makes a client a spectator, for example "?game=42&amp;spectate=true".
+     */
+    public static final String SPECTATE_PARAMETER = "spectate";
+    /**
+     * The name of the query parameter that holds the difficulty of the bot a client wants to play against.
+     */
+    public static final String BOT_PARAMETER = "bot";
+    /**
+     * The name of the query parameter that holds the id of the player, under which the {@link PlayerStore} keeps its record.
+     */
+    public static final String PLAYER_PARAMETER = "player";
+    /**
+     * The name of the query parameter that holds the resume token of a client that reconnects.
+     */
+    public static final String RESUME_PARAMETER = "resume";
+    /**
+     * The name of the query parameter that holds the sequence number of the last move a reconnecting client saw.
+     */
+    public static final String SEQUENCE_PARAMETER = "seq";
+    /**
+     * The number of milliseconds a player that lost its connection keeps its seat.
+     */
+    public static final long RESUME_GRACE_PERIOD = 30_000;
+    /**
+     * The default number of milliseconds the game waits for a move or an answer of a client.
+     */
+    public static final long DEFAULT_TURN_TIMEOUT = 300_000;
+    /**
+     * The number of clients that play a hosted game.
+     */
+    public static final int HOSTED_SEATS = 2;
+    private static GameSessionManager instance;
+
+    /**
+     * This method is used to get the instance of the GameSessionManager.
+     * If the instance does not exist, it creates a new one.
+     * @return The instance of the GameSessionManager.
+     */
+    public static synchronized GameSessionManager getInstance() {
+        if (instance == null) {
+            instance = new GameSessionManager();
+        }
+        return instance;
+    }
+
+    private final ConcurrentMap<String, GameSession> sessions = new ConcurrentHashMap<>();
+    private volatile ExecutorService gameExecutor = GameExecutors.newGameExecutor(GameExecutors.VIRTUAL);
+    private volatile boolean hosting;
+    private volatile long heartbeatInterval = Heartbeat.DEFAULT_INTERVAL;
+    private volatile long idleTimeout = Heartbeat.DEFAULT_IDLE_TIMEOUT;
+    private volatile long turnTimeout = DEFAULT_TURN_TIMEOUT;
+
+    /**
+     * The constructor is private to prevent creating multiple instances.
+     */
+    private GameSessionManager() {
+    }
+
+    /**
+     * This method is used to let clients create games by naming them.
+     * @param hosting true to create a hosted game for every new game id, false to only accept opened games.
+     */
+    public void setHosting(boolean hosting) {
+        this.hosting = hosting;
+    }
+
+    /**
+     * This method is used to check whether clients can create games.
+     * @return true if a hosted game is created for every new game id.
+     */
+    public boolean isHosting() {
+        return hosting;
+    }
+
+    /**
+     * This method is used to set the executor that runs hosted games.
+     * Games that are already running stay on the old executor, which is shut down once they end.
+     * @param gameExecutor The executor. Every game blocks a thread of it while waiting for its players,
+     *                     so it must not limit the number of threads.
+     */
+    public void setGameExecutor(ExecutorService gameExecutor) {
+        ExecutorService old = this.gameExecutor;
+        this.gameExecutor = gameExecutor;
+        old.shutdown();
+    }
+
+    /**
+     * This method is used to set the timeouts of the players that join from now on.
+     * @param idleTimeout The number of milliseconds without any message after which a connection is treated as dead.
+     *                    Pings are sent three times in that time.
+     * @param turnTimeout The number of milliseconds the game waits for a move or an answer of a client, or 0 to wait forever.
+     */
+    public void setTimeouts(long idleTimeout, long turnTimeout) {
+        this.heartbeatInterval = Math.max(1, idleTimeout / 3);
+        this.idleTimeout = idleTimeout;
+        this.turnTimeout = turnTimeout;
+    }
+
+    /**
+     * This method is used to get the number of milliseconds between two pings to a player.
+     * @return The heartbeat interval.
+     */
+    public long getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    /**
+     * This method is used to get the number of milliseconds without any message after which a connection is treated as dead.
+     * @return The idle timeout.
+     */
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * This method is used to get the number of milliseconds the game waits for a move or an answer of a client.
+     * @return The turn timeout, or 0 if the game waits forever.
+     */
+    public long getTurnTimeout() {
+        return turnTimeout;
+    }
+
+    /**
+     * This method is used to open a game for a local host.
+     * If a game with this id is already open, it is returned instead.
+     * @param id The id of the game.
+     * @param seats The number of clients that join the game.
+     * @return The game.
+     */
+    public GameSession open(String id, int seats) {
+        return sessions.computeIfAbsent(id, key -> new GameSession(key, seats, false));
+    }
+
+    /**
+     * This method is used to create a hosted game before its players join, as the lobby does for every match.
+     * If a game with this id is already open, it is returned instead.
+     * @param id The id of the game.
+     * @return The game.
+     */
+    public GameSession openHosted(String id) {
+        return sessions.computeIfAbsent(id, this::host);
+    }
+
+    /**
+     * This method is used to seat a connection in the game with the given id.
+     * @param id The id of the game.
+     * @param connection The connection of the joining player.
+     * @return The game the connection joined, or null if there is no such game or it is full.
+     */
+    public GameSession join(String id, WebSocketServerEndpoint connection) {
+        return join(id, 0, connection);
+    }
+
+    /**
+     * This method is used to seat a connection in the game with the given id.
+     * When hosting is enabled and there is no such game, a game against a bot is created if a difficulty is given.
+     * @param id The id of the game.
+     * @param botDifficulty The difficulty of the bot, or 0 for a game between two clients.
+     * @param connection The connection of the joining player.
+     * @return The game the connection joined, or null if there is no such game or it is full.
+     */
+    public GameSession join(String id, int botDifficulty, WebSocketServerEndpoint connection) {
+        while (true) {
+            GameSession session = !hosting ? sessions.get(id)
+                    : sessions.computeIfAbsent(id, key -> botDifficulty > 0 ? hostBot(key, botDifficulty) : host(key));
+            if (session == null) {
+                return null;
+            }
+            if (session.join(connection) >= 0) {
+                return session;
+            }
+            if (!session.isClosed()) {
+                return null;
+            }
+            // The game ended between the lookup and the join, so look it up again
+            sessions.remove(id, session);
+        }
+    }
+
+    /**
+     * This method is used to close a game and forget it.
+     * @param session The game to close.
+     */
+    public void remove(GameSession session) {
+        session.close();
+        sessions.remove(session.getId(), session);
+    }
+
+    /**
+     * This method is used to get the game with the given id.
+     * @param id The id of the game.
+     * @return The game, or null if there is no such game.
+     */
+    public GameSession getSession(String id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * This method is used to get the number of open games.
+     * @return The number of games.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * This method is used to write the round trip times of every player in an open game to a JSON file.
+     * The file maps every game id to the latency histograms of its seats.
+     * @param path The path of the file.
+     */
+    public void exportLatencies(String path) {
+        Map<String, Map<String, LatencyHistogram.Snapshot>> latencies = new TreeMap<>();
+        for (GameSession session : sessions.values()) {
+            latencies.put(session.getId(), session.getLatencies());
+        }
+        try {
+            Files.write(Paths.get(path), new Gson().toJson(latencies).getBytes());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * This method is used to create a hosted game and start running it.
+     * The game waits on the game executor until both players joined.
+     * @param id The id of the game.
+     * @return The new game.
+     */
+    private GameSession host(String id) {
+        GameSession session = new GameSession(id, HOSTED_SEATS, true);
+        gameExecutor.execute(() -> new HostedGameController(session).run());
+        return session;
+    }
+
+    /**
+     * This method is used to create a game against a bot and start running it.
+     * The game waits on the game executor until its player joined.
+     * @param id The id of the game.
+     * @param difficulty The difficulty of the bot.
+     * @return The new game.
+     */
+    private GameSession hostBot(String id, int difficulty) {
+        GameSession session = new GameSession(id, 1, true);
+        gameExecutor.execute(() -> new BotGameController(session, difficulty).run());
+        return session;
+    }
+}
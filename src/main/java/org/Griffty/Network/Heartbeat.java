@@ -0,0 +1,133 @@
+package org.Griffty.Network;
+
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.PongMessage;
+import jakarta.websocket.Session;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * This class keeps a WebSocket connection under watch.
+ * <p>
+ * Every interval it sends a ping that carries the time it was sent, and the pong that comes back gives the round trip
+ * time, which is recorded in a {@link LatencyHistogram}. Any message from the other side, pongs included, shows that
+ * it is still there. If nothing arrives for longer than the idle timeout, the connection is treated as dead and
+ * closed with {@link #TIMED_OUT}, so a half-open connection does not leave the game waiting forever.
+ * A player that is slow to move still answers pings, so it is not mistaken for a dead connection.
+ * <p>
+ * All heartbeats share one scheduler thread. A heartbeat only sends a ping or closes a connection, so it never blocks it.
+ */
+public class Heartbeat {
+    /**
+     * The default number of milliseconds between two pings.
+     */
+    public static final long DEFAULT_INTERVAL = 5_000;
+    /**
+     * The default number of milliseconds without any message after which a connection is treated as dead.
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT = 15_000;
+    /**
+     * The close code of a connection that was closed because the other side stopped answering.
+     * It is not a normal closure, so a player closed with it can still resume its game.
+     */
+    public static final CloseReason.CloseCode TIMED_OUT = () -> 4000;
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Supplier<Session> session;
+    private final long interval;
+    private final long idleTimeoutNanos;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private volatile long lastHeard = System.nanoTime();
+    private ScheduledFuture<?> task;
+
+    /**
+     * Constructor for the Heartbeat class.
+     * @param session Gives the current session of the connection, which changes when a player resumes its game.
+     * @param interval The number of milliseconds between two pings.
+     * @param idleTimeout The number of milliseconds without any message after which the connection is closed.
+     */
+    public Heartbeat(Supplier<Session> session, long interval, long idleTimeout) {
+        this.session = session;
+        this.interval = interval;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+    }
+
+    /**
+     * This method is used to start sending pings.
+     */
+    public synchronized void start() {
+        if (task == null) {
+            lastHeard = System.nanoTime();
+            task = SCHEDULER.scheduleAtFixedRate(this::beat, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * This method is used to stop sending pings.
+     */
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    /**
+     * This method is used to note that a message arrived from the other side.
+     */
+    public void heard() {
+        lastHeard = System.nanoTime();
+    }
+
+    /**
+     * This method is used to handle a pong. It records the round trip time of the ping it answers.
+     * @param pong The pong that arrived.
+     */
+    public void pong(PongMessage pong) {
+        long now = System.nanoTime();
+        lastHeard = now;
+        ByteBuffer data = pong.getApplicationData();
+        if (data.remaining() == Long.BYTES) {
+            latency.record(now - data.getLong(data.position()));
+        }
+    }
+
+    /**
+     * This method is used to get the round trip times of the connection.
+     * @return The latency histogram.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * This method is used to send a ping, or to close the connection if the other side stopped answering.
+     * Connections that are already closed are left alone.
+     */
+    private void beat() {
+        Session session = this.session.get();
+        if (session == null || !session.isOpen()) {
+            return;
+        }
+        long now = System.nanoTime();
+        try {
+            if (now - lastHeard > idleTimeoutNanos) {
+                session.close(new CloseReason(TIMED_OUT, "No answer for " + TimeUnit.NANOSECONDS.toMillis(now - lastHeard) + " ms"));
+            } else {
+                session.getAsyncRemote().sendPing(ByteBuffer.allocate(Long.BYTES).putLong(0, now));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The connection is closing, its close handler takes care of it
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.Griffty.Network;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class counts the round trip times of one connection.
+ * <p>
+ * Every bucket covers twice the range of the one before it: bucket i counts the round trips
+ * from 2^(i-1) up to 2^i microseconds. That keeps the histogram small and fixed in size,
+ * while it is still exact enough to tell a fast link from a slow one or a stalled one.
+ * Percentiles are reported as the upper bound of their bucket.
+ * <p>
+ * The heartbeat of the connection records into the histogram while other threads read it, so every counter is atomic.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+    private volatile long lastMicros;
+
+    /**
+     * This method is used to record a round trip.
+     * @param nanos The round trip time in nanoseconds.
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros)));
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+        lastMicros = micros;
+    }
+
+    /**
+     * This method is used to get the number of recorded round trips.
+     * @return The number of round trips.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * This method is used to get the last recorded round trip time.
+     * @return The round trip time in milliseconds, or 0 if nothing was recorded.
+     */
+    public double getLastMillis() {
+        return lastMicros / 1000.0;
+    }
+
+    /**
+     * This method is used to estimate a percentile of the round trip times.
+     * @param percentile The percentile, between 0 and 100.
+     * @return The upper bound of the bucket the percentile falls into in milliseconds, or 0 if nothing was recorded.
+     */
+    public double getPercentileMillis(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(1L << i, maxMicros.get()) / 1000.0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * This method is used to copy the histogram into an object that can be exported.
+     * @return The current state of the histogram.
+     */
+    public Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot();
+        snapshot.count = count.get();
+        snapshot.meanMillis = snapshot.count == 0 ? 0 : totalMicros.get() / 1000.0 / snapshot.count;
+        snapshot.p50Millis = getPercentileMillis(50);
+        snapshot.p90Millis = getPercentileMillis(90);
+        snapshot.p99Millis = getPercentileMillis(99);
+        snapshot.maxMillis = maxMicros.get() / 1000.0;
+        snapshot.lastMillis = getLastMillis();
+        snapshot.buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot.buckets[i] = buckets.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * This class holds the state of a histogram at one moment, in the form it is exported as JSON.
+     * Bucket i of {@link #buckets} counts the round trips below 2^i microseconds that did not fit the bucket before.
+     */
+    public static class Snapshot {
+        long count;
+        double meanMillis;
+        double p50Millis;
+        double p90Millis;
+        double p99Millis;
+        double maxMillis;
+        double lastMillis;
+        long[] buckets;
+    }
+}
@@ -0,0 +1,67 @@
+package org.Griffty.Network;
+
+import com.google.gson.Gson;
+import jakarta.websocket.*;
+import jakarta.websocket.server.ServerEndpoint;
+import org.Griffty.Statistics.RatingEngine;
+
+import java.io.IOException;
+
+/**
+ * This class represents the WebSocket endpoint of the leaderboard.
+ * A client that connects is sent the best players of the server as a JSON array, highest rating first,
+ * and the session is closed. The number of players is sent in the query, for example "/connect-four/leaderboard?top=50",
+ * and is {@value #DEFAULT_TOP} if the client sent none.
+ */
+@ServerEndpoint("/leaderboard")
+public class LeaderboardEndpoint {
+    /**
+     * The name of the query parameter that holds the number of players.
+     */
+    public static final String TOP_PARAMETER = "top";
+    /**
+     * The number of players sent if the client did not ask for a number.
+     */
+    public static final int DEFAULT_TOP = 10;
+
+    /**
+     * This method is called when a client connects to the leaderboard. It sends the best players and closes the session.
+     * @param session The WebSocket session that was opened.
+     */
+    @OnOpen
+    public void OnOpen(Session session) {
+        String top = new Gson().toJson(RatingEngine.getInstance().getTopPlayers(getTop(session)));
+        try {
+            session.getBasicRemote().sendText(top);
+            session.close(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "Leaderboard sent"));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * This method is called when an error occurs in the WebSocket session.
+     * It throws a RuntimeException with the error.
+     * @param session The WebSocket session where the error occurred.
+     * @param throwable The error that occurred.
+     */
+    @OnError
+    public void OnError(Session session, Throwable throwable) {
+        throw new RuntimeException(throwable);
+    }
+
+    /**
+     * This method is used to get the number of players the client asked for.
+     * @param session The WebSocket session of the client.
+     * @return The number of players, between 1 and {@link RatingEngine#LEADERBOARD_SIZE}.
+     */
+    private static int getTop(Session session) {
+        String top = WebSocketServerEndpoint.getParameter(session, TOP_PARAMETER);
+        try {
+            int count = top == null ? DEFAULT_TOP : Integer.parseInt(top);
+            return Math.max(1, Math.min(count, RatingEngine.LEADERBOARD_SIZE));
+        } catch (NumberFormatException e) {
+            return DEFAULT_TOP;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.Griffty.Network;
+
+import jakarta.websocket.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * This class represents the client side of the lobby.
+ * It waits in the lobby of a server until the {@link Matchmaker} found an opponent, and returns the id of the game
+ * both were matched into. The client then joins that game with a {@link WebSocketClientEndpoint}.
+ */
+@ClientEndpoint
+public class LobbyClientEndpoint {
+    private final CompletableFuture<String> match = new CompletableFuture<>();
+
+    /**
+     * This method is called when a message is received from the lobby.
+     * @param message The message received from the lobby.
+     */
+    @OnMessage
+    public void onMessage(String message) {
+        String[] split = message.split(":", 2);
+        if (split[0].equals("match")) {
+            match.complete(split[1]);
+        }
+    }
+
+    /**
+     * This method is called when the lobby closed the connection before a match was found.
+     * @param session The WebSocket session that was closed.
+     * @param closeReason The reason why the session was closed.
+     */
+    @OnClose
+    public void onClose(Session session, CloseReason closeReason) {
+        match.completeExceptionally(new IOException("Left the lobby without a match: " + closeReason.getReasonPhrase()));
+    }
+
+    /**
+     * This method is called when an error occurs in the WebSocket session.
+     * @param session The WebSocket session where the error occurred.
+     * @param throwable The error that occurred.
+     */
+    @OnError
+    public void onError(Session session, Throwable throwable) {
+        match.completeExceptionally(throwable);
+    }
+
+    /**
+     * This method is used to wait in the lobby until an opponent was found.
+     * @param lobbyURI The URI of the lobby, with the rating of the player.
+     * @return The id of the game the player was matched into.
+     * @throws RuntimeException if the lobby cannot be reached or closed the connection before a match was found.
+     */
+    public static String findMatch(URI lobbyURI) {
+        LobbyClientEndpoint client = new LobbyClientEndpoint();
+        try (Session session = WebSocketClientEndpoint.getContainer().connectToServer(client, lobbyURI)) {
+            return client.match.join();
+        } catch (DeploymentException | IOException | CompletionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.Griffty.Network;
+
+import jakarta.websocket.*;
+import jakarta.websocket.server.ServerEndpoint;
+import org.Griffty.Statistics.PlayerStatistics;
+import org.Griffty.Statistics.PlayerStore;
+
+import java.io.IOException;
+
+/**
+ * This class represents the WebSocket endpoint of the lobby.
+ * A new endpoint is created for every connection, so every field belongs to a single client.
+ * <p>
+ * A client that connects is queued by the {@link Matchmaker}, with the rating of its player in the {@link PlayerStore}
+ * if it sends a player id, for example "/connect-four/lobby?player=&lt;id&gt;", or else with the rating it sends
+ * in the query, for example "/connect-four/lobby?rating=1350". Once it is matched, it is sent "match:&lt;game id&gt;"
+ * and joins that game on the "/server" endpoint. Closing the connection before that leaves the lobby.
+ * The lobby is only open while the server hosts games.
+ */
+@ServerEndpoint("/lobby")
+public class LobbyEndpoint {
+    private Session lobbySession;
+    private Matchmaker.Ticket ticket;
+
+    /**
+     * This method is called when a client connects to the lobby. It queues the client for a match.
+     * If the server does not host games, the session is closed.
+     * @param session The WebSocket session that was opened.
+     */
+    @OnOpen
+    public void OnOpen(Session session) {
+        lobbySession = session;
+        if (!GameSessionManager.getInstance().isHosting()) {
+            try {
+                session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "The server does not host games"));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return;
+        }
+        ticket = Matchmaker.getInstance().enqueue(getRating(session), this::matched);
+    }
+
+    /**
+     * This method is called when the WebSocket session is closed. The client leaves the lobby.
+     * @param session The WebSocket session that was closed.
+     * @param closeReason The reason why the session was closed.
+     */
+    @OnClose
+    public void OnClose(Session session, CloseReason closeReason) {
+        if (ticket != null) {
+            ticket.leave();
+        }
+    }
+
+    /**
+     * This method is called when an error occurs in the WebSocket session.
+     * It throws a RuntimeException with the error.
+     * @param session The WebSocket session where the error occurred.
+     * @param throwable The error that occurred.
+     */
+    @OnError
+    public void OnError(Session session, Throwable throwable) {
+        throw new RuntimeException(throwable);
+    }
+
+    /**
+     * This method is used to send the client the id of the game it was matched into.
+     * @param gameId The id of the game.
+     */
+    private void matched(String gameId) {
+        Session session = lobbySession;
+        if (session.isOpen()) {
+            session.getAsyncRemote().sendText("match:" + gameId);
+        }
+    }
+
+    /**
+     * This method is used to get the rating of the client: the rating of its player on this server, or else the rating it sent.
+     * @param session The WebSocket session of the client.
+     * @return The rating, or {@link PlayerStatistics#DEFAULT_RATING} if the client sent none or it is not a number.
+     */
+    private static int getRating(Session session) {
+        String playerId = WebSocketServerEndpoint.getParameter(session, GameSessionManager.PLAYER_PARAMETER);
+        if (playerId != null) {
+            return PlayerStore.getInstance().getRating(playerId);
+        }
+        String rating = WebSocketServerEndpoint.getParameter(session, Matchmaker.RATING_PARAMETER);
+        try {
+            return rating == null ? PlayerStatistics.DEFAULT_RATING : Integer.parseInt(rating);
+        } catch (NumberFormatException e) {
+            return PlayerStatistics.DEFAULT_RATING;
+        }
+    }
+}
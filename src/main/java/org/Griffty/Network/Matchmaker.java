@@ -0,0 +1,296 @@
+package org.Griffty.Network;
+
+import org.Griffty.Statistics.PlayerStatistics;
+
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * This class pairs the players waiting in the lobby and opens a hosted game for every pair.
+ * It uses the Singleton design pattern to ensure only one instance of this class is created.
+ * <p>
+ * Waiting players are kept in buckets of {@value #BUCKET_WIDTH} rating points. Every bucket is a lock-free queue,
+ * so players joining and leaving the lobby never wait for each other. A joining player is paired right away with
+ * the longest waiting player of its own bucket. Players that find nobody are paired every {@value #MATCH_INTERVAL} ms
+ * by a single matcher thread, which looks one bucket further away for every {@value #WIDEN_INTERVAL} ms a player
+ * waited, so a player with an unusual rating still finds an opponent.
+ * <p>
+ * Both players of a pair are sent the id of their game and join it like any other hosted game.
+ * A game that is not full {@value #JOIN_TIMEOUT} ms after the match is closed, so a player whose opponent
+ * never came does not wait forever.
+ */
+public class Matchmaker {
+    /**
+     * The name of the query parameter that holds the rating of a player in the lobby, for example "/lobby?rating=1350".
+     * Players without a rating are matched as {@link PlayerStatistics#DEFAULT_RATING}.
+     */
+    public static final String RATING_PARAMETER = "rating";
+    /**
+     * The game id a client enters to be matched in the lobby instead of joining a game by its id.
+     */
+    public static final String LOBBY = "lobby";
+    /**
+     * The number of rating points covered by one bucket.
+     */
+    public static final int BUCKET_WIDTH = 100;
+    /**
+     * The highest rating that gets a bucket of its own. Higher ratings share the last bucket.
+     */
+    public static final int MAX_RATING = 3_000;
+    /**
+     * The number of milliseconds between two rounds of the matcher thread.
+     */
+    public static final long MATCH_INTERVAL = 100;
+    /**
+     * The number of milliseconds a player waits before it is matched with players one bucket further away.
+     */
+    public static final long WIDEN_INTERVAL = 2_000;
+    /**
+     * The number of milliseconds the players of a match have to join their game.
+     */
+    public static final long JOIN_TIMEOUT = 10_000;
+    private static final int GAME_ID_BYTES = 12;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static Matchmaker instance;
+
+    /**
+     * This method is used to get the instance of the Matchmaker.
+     * If the instance does not exist, it creates a new one.
+     * @return The instance of the Matchmaker.
+     */
+    public static synchronized Matchmaker getInstance() {
+        if (instance == null) {
+            instance = new Matchmaker();
+        }
+        return instance;
+    }
+
+    @SuppressWarnings("unchecked")
+    private final ConcurrentLinkedDeque<Ticket>[] buckets = new ConcurrentLinkedDeque[MAX_RATING / BUCKET_WIDTH + 1];
+    private final LongAdder waiting = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+
+    /**
+     * The constructor is private to prevent creating multiple instances.
+     * It starts the matcher thread.
+     */
+    private Matchmaker() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ConcurrentLinkedDeque<>();
+        }
+        ScheduledExecutorService matcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "matchmaker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        matcher.scheduleWithFixedDelay(this::matchWaiting, MATCH_INTERVAL, MATCH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * This method is used to put a player into the lobby.
+     * The player is paired right away if a player of the same bucket is waiting.
+     * @param rating The rating of the player.
+     * @param onMatch Called with the id of the game once the player was matched.
+     * @return The ticket of the player, which is used to leave the lobby.
+     */
+    public Ticket enqueue(int rating, Consumer<String> onMatch) {
+        Ticket ticket = new Ticket(rating, onMatch);
+        ticket.claimed.set(true);
+        Ticket opponent = pollWaiting(ticket.bucket);
+        if (opponent != null) {
+            match(opponent, ticket);
+            return ticket;
+        }
+        ticket.claimed.set(false);
+        waiting.increment();
+        buckets[ticket.bucket].offer(ticket);
+        return ticket;
+    }
+
+    /**
+     * This method is used to get the number of players waiting in the lobby.
+     * Players that left are counted until the matcher thread drops them.
+     * @return The number of waiting players.
+     */
+    public long getWaitingCount() {
+        return waiting.sum();
+    }
+
+    /**
+     * This method is used to get the number of matches made since the server started.
+     * @return The number of matches.
+     */
+    public long getMatchCount() {
+        return matches.sum();
+    }
+
+    /**
+     * This method is used to pair the players that were not paired when they joined.
+     * It runs on the matcher thread. Every waiting player is paired with the next player of its own bucket,
+     * or if there is none, with a player of the buckets its waiting time allows.
+     */
+    private void matchWaiting() {
+        long now = System.nanoTime();
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            ArrayDeque<Ticket> unmatched = new ArrayDeque<>();
+            Ticket ticket;
+            while ((ticket = pollWaiting(bucket)) != null) {
+                Ticket opponent = pollWaiting(bucket);
+                if (opponent == null) {
+                    opponent = pollNearby(bucket, radius(ticket, now));
+                }
+                if (opponent != null) {
+                    match(ticket, opponent);
+                } else {
+                    unmatched.push(ticket);
+                }
+            }
+            // The players that are still waiting go back to the front, so they keep their place in the queue
+            while ((ticket = unmatched.poll()) != null) {
+                ticket.claimed.set(false);
+                waiting.increment();
+                buckets[bucket].offerFirst(ticket);
+            }
+        }
+    }
+
+    /**
+     * This method is used to get how many buckets away a player may be matched.
+     * @param ticket The ticket of the player.
+     * @param now The current time in nanoseconds.
+     * @return The number of buckets.
+     */
+    private static int radius(Ticket ticket, long now) {
+        return (int) (TimeUnit.NANOSECONDS.toMillis(now - ticket.enqueued) / WIDEN_INTERVAL);
+    }
+
+    /**
+     * This method is used to take a waiting player from the buckets around a bucket, the nearest buckets first.
+     * @param bucket The bucket of the player looking for an opponent.
+     * @param radius The number of buckets to look at on either side.
+     * @return The claimed ticket of the opponent, or null if there is none.
+     */
+    private Ticket pollNearby(int bucket, int radius) {
+        for (int distance = 1; distance <= radius; distance++) {
+            if (bucket - distance < 0 && bucket + distance >= buckets.length) {
+                return null;
+            }
+            if (bucket - distance >= 0) {
+                Ticket ticket = pollWaiting(bucket - distance);
+                if (ticket != null) {
+                    return ticket;
+                }
+            }
+            if (bucket + distance < buckets.length) {
+                Ticket ticket = pollWaiting(bucket + distance);
+                if (ticket != null) {
+                    return ticket;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This method is used to take the longest waiting player out of a bucket.
+     * Players that left the lobby are dropped on the way.
+     * @param bucket The bucket.
+     * @return The claimed ticket of the player, or null if nobody is waiting in the bucket.
+     */
+    private Ticket pollWaiting(int bucket) {
+        Ticket ticket;
+        while ((ticket = buckets[bucket].poll()) != null) {
+            waiting.decrement();
+            if (!ticket.left && ticket.claimed.compareAndSet(false, true)) {
+                return ticket;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This method is used to open a game for two players and send them its id.
+     * If one of them left in the meantime, the other one goes back into the lobby.
+     * @param first The claimed ticket of the player that waited longer.
+     * @param second The claimed ticket of the other player.
+     */
+    private void match(Ticket first, Ticket second) {
+        if (first.left || second.left) {
+            for (Ticket ticket : new Ticket[]{first, second}) {
+                if (!ticket.left) {
+                    ticket.claimed.set(false);
+                    waiting.increment();
+                    buckets[ticket.bucket].offerFirst(ticket);
+                }
+            }
+            return;
+        }
+        String gameId = newGameId();
+        GameSessionManager manager = GameSessionManager.getInstance();
+        manager.openHosted(gameId);
+        matches.increment();
+        first.onMatch.accept(gameId);
+        second.onMatch.accept(gameId);
+        CompletableFuture.delayedExecutor(JOIN_TIMEOUT, TimeUnit.MILLISECONDS).execute(() -> {
+            // A player that joined and left again may have opened a new game under the same id
+            GameSession session = manager.getSession(gameId);
+            if (session != null && !session.isFull()) {
+                manager.remove(session);
+                for (int seat = 0; seat < GameSessionManager.HOSTED_SEATS; seat++) {
+                    WebSocketServerEndpoint player = session.getPlayer(seat);
+                    if (player != null) {
+                        player.disconnect();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * This method is used to create a game id that cannot be guessed, so no one else can take a seat of the match.
+     * @return The game id.
+     */
+    private static String newGameId() {
+        byte[] id = new byte[GAME_ID_BYTES];
+        RANDOM.nextBytes(id);
+        return "match-" + Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+    }
+
+    /**
+     * This class represents a player waiting in the lobby.
+     * A ticket is claimed by whoever takes it out of its bucket, so every player is matched at most once.
+     */
+    public static class Ticket {
+        private final int bucket;
+        private final Consumer<String> onMatch;
+        private final long enqueued = System.nanoTime();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private volatile boolean left;
+
+        /**
+         * Constructor for the Ticket class.
+         * @param rating The rating of the player.
+         * @param onMatch Called with the id of the game once the player was matched.
+         */
+        private Ticket(int rating, Consumer<String> onMatch) {
+            this.bucket = Math.max(0, Math.min(rating, MAX_RATING)) / BUCKET_WIDTH;
+            this.onMatch = onMatch;
+        }
+
+        /**
+         * This method is used to leave the lobby. A player that was already matched keeps its game.
+         */
+        public void leave() {
+            left = true;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.Griffty.Network;
+
+import org.Griffty.Board;
+
+/**
+ * This class records the moves of the current game of a session, so a client that lost its connection
+ * can be sent the moves it missed when it comes back.
+ * The controller of the game records the board before every turn, and the board and the result at the end.
+ * <p>
+ * The game thread records the moves while connection threads read them, so every method is synchronized.
+ * Readers take a {@link #copy()} and read that, so they see one consistent state of the game.
+ */
+public class MoveLog {
+    private final int[] columns = new int[Board.ROWS * Board.COLUMNS];
+    private final int[] sides = new int[Board.ROWS * Board.COLUMNS];
+    private int size;
+    private int game;
+    private int victoryStatus;
+    private int currentTurn = 1;
+
+    /**
+     * This method is used to record the state of the game before a turn.
+     * An empty board starts the log of a new game, otherwise the last move of the board is added to the log.
+     * @param board The board of the game.
+     * @param currentTurn The side whose turn it is.
+     */
+    public synchronized void record(Board board, int currentTurn) {
+        int moveCount = board.getMoveCount();
+        if (moveCount == 0) {
+            size = 0;
+            victoryStatus = 0;
+            game++;
+        } else if (moveCount == size + 1 && board.getLastMove() >= 0) {
+            columns[size] = board.getLastMove();
+            sides[size] = 3 - currentTurn;
+            size++;
+        }
+        this.currentTurn = currentTurn;
+    }
+
+    /**
+     * This method is used to record the end of the game, with the move that ended it.
+     * The move is made by the side whose turn was recorded last.
+     * @param board The board of the game after the last move.
+     * @param victoryStatus The status of the victory.
+     */
+    public synchronized void finish(Board board, int victoryStatus) {
+        if (board.getMoveCount() == size + 1 && board.getLastMove() >= 0) {
+            columns[size] = board.getLastMove();
+            sides[size] = currentTurn;
+            size++;
+            currentTurn = 3 - currentTurn;
+        }
+        this.victoryStatus = victoryStatus;
+    }
+
+    /**
+     * This method is used to copy the log, so it can be read while the game goes on.
+     * @return A copy of the log.
+     */
+    public synchronized MoveLog copy() {
+        MoveLog copy = new MoveLog();
+        System.arraycopy(columns, 0, copy.columns, 0, size);
+        System.arraycopy(sides, 0, copy.sides, 0, size);
+        copy.size = size;
+        copy.game = game;
+        copy.victoryStatus = victoryStatus;
+        copy.currentTurn = currentTurn;
+        return copy;
+    }
+
+    /**
+     * This method is used to get the number of the game, which grows by one with every game of the session.
+     * @return The number of the game.
+     */
+    public synchronized int getGame() {
+        return game;
+    }
+
+    /**
+     * This method is used to get the number of moves made in the game.
+     * @return The number of moves, which is also the sequence number of the last move.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * This method is used to get the column of a move.
+     * @param index The index of the move, starting with 0.
+     * @return The column of the move.
+     */
+    public synchronized int getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * This method is used to get the side that made a move.
+     * @param index The index of the move, starting with 0.
+     * @return The side of the move.
+     */
+    public synchronized int getSide(int index) {
+        return sides[index];
+    }
+
+    /**
+     * This method is used to get the side that makes the next move.
+     * @return The side whose turn it is.
+     */
+    public synchronized int getCurrentTurn() {
+        return currentTurn;
+    }
+
+    /**
+     * This method is used to get the result of the game.
+     * @return The status of the victory, or 0 while the game goes on.
+     */
+    public synchronized int getVictoryStatus() {
+        return victoryStatus;
+    }
+
+    /**
+     * This method is used to replay the moves on a new board.
+     * @return The board after the moves.
+     */
+    public synchronized Board toBoard() {
+        Board board = new Board();
+        for (int i = 0; i < size; i++) {
+            board.putToken(columns[i], sides[i]);
+        }
+        return board;
+    }
+}
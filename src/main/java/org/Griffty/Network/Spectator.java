@@ -0,0 +1,118 @@
+package org.Griffty.Network;
+
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.Session;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class represents a client that watches a game without playing in it.
+ * <p>
+ * Frames for the spectator wait in a bounded queue and are sent one after another without blocking any thread:
+ * the next frame is sent when the container reports that the previous one was written.
+ * When the spectator falls so far behind that the queue is full, the queued moves are dropped
+ * and replaced with a snapshot of the game, so a slow spectator skips ahead instead of slowing the game down.
+ */
+public class Spectator {
+    private final Session session;
+    private final BlockingQueue<ByteBuffer> queue;
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private volatile boolean finishing;
+
+    /**
+     * Constructor for the Spectator class.
+     * @param session The WebSocket session of the spectator.
+     * @param capacity The number of frames that can wait for the spectator.
+     */
+    public Spectator(Session session, int capacity) {
+        this.session = session;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * This method is used to queue a frame for the spectator.
+     * If the queue is full, everything queued is replaced with the snapshot.
+     * @param frame The frame to send. It is shared with other spectators and must not be changed.
+     * @param snapshot A snapshot of the game after the frame, sent instead when the spectator is behind.
+     */
+    public void offer(ByteBuffer frame, ByteBuffer snapshot) {
+        if (!queue.offer(frame)) {
+            synchronized (queue) {
+                queue.clear();
+                queue.offer(snapshot);
+            }
+        }
+        drain();
+    }
+
+    /**
+     * This method is used to drop everything queued for the spectator and send a snapshot instead.
+     * @param snapshot A snapshot of the game.
+     */
+    public void resync(ByteBuffer snapshot) {
+        synchronized (queue) {
+            queue.clear();
+            queue.offer(snapshot);
+        }
+        drain();
+    }
+
+    /**
+     * This method is used to check whether the spectator is still connected.
+     * @return true if the session is open.
+     */
+    public boolean isOpen() {
+        return session.isOpen();
+    }
+
+    /**
+     * This method is used to disconnect the spectator once everything queued for it is sent,
+     * so that it still sees the end of the game.
+     */
+    public void finish() {
+        finishing = true;
+        drain();
+    }
+
+    /**
+     * This method is used to disconnect the spectator.
+     */
+    public void disconnect() {
+        try {
+            session.close(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "Game ended"));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * This method is used to send the next queued frame unless a frame is already being sent.
+     */
+    private void drain() {
+        while (sending.compareAndSet(false, true)) {
+            ByteBuffer frame = queue.poll();
+            if (frame == null || !session.isOpen()) {
+                sending.set(false);
+                // A frame may have been queued after the poll but before sending was reset
+                if (queue.isEmpty() || !session.isOpen()) {
+                    if (finishing && session.isOpen() && queue.isEmpty()) {
+                        disconnect();
+                    }
+                    return;
+                }
+                continue;
+            }
+            session.getAsyncRemote().sendBinary(frame.duplicate(), result -> {
+                sending.set(false);
+                if (result.isOK()) {
+                    drain();
+                }
+            });
+            return;
+        }
+    }
+}
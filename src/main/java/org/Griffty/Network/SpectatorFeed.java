@@ -0,0 +1,131 @@
+package org.Griffty.Network;
+
+import jakarta.websocket.Session;
+import org.Griffty.Board;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This class sends the updates of one game to everyone watching it.
+ * <p>
+ * Every update is encoded once into a read-only frame that all spectators share, so the cost of an update
+ * hardly depends on the number of spectators. Spectators get the frames of the binary protocol of version
+ * {@link FrameCodec#DELTA_VERSION}: a snapshot when they join and after they fell behind, and a move after every move.
+ * <p>
+ * The updates are published by the thread of the game. Publishing only queues the frames, so slow spectators
+ * never hold up the players.
+ */
+public class SpectatorFeed {
+    /**
+     * The number of frames that can wait for a spectator before it is sent a snapshot instead.
+     */
+    public static final int QUEUE_CAPACITY = 64;
+
+    private final List<Spectator> spectators = new CopyOnWriteArrayList<>();
+    private final FrameCodec codec = new FrameCodec();
+    private volatile ByteBuffer snapshot = share(codec.encodeSnapshot(0, 1, new int[Board.ROWS][Board.COLUMNS]));
+    private int sequence = -1;
+
+    /**
+     * This method is used to add a spectator. It is sent the current state of the game right away.
+     * @param session The WebSocket session of the spectator.
+     * @return The spectator.
+     */
+    public Spectator add(Session session) {
+        Spectator spectator = new Spectator(session, QUEUE_CAPACITY);
+        spectators.add(spectator);
+        spectator.resync(snapshot);
+        return spectator;
+    }
+
+    /**
+     * This method is used to remove a spectator that left.
+     * @param spectator The spectator.
+     */
+    public void remove(Spectator spectator) {
+        spectators.remove(spectator);
+    }
+
+    /**
+     * This method is used to send a snapshot to a spectator that missed a move.
+     * @param spectator The spectator.
+     */
+    public void resync(Spectator spectator) {
+        spectator.resync(snapshot);
+    }
+
+    /**
+     * This method is used to get the number of spectators.
+     * @return The number of spectators.
+     */
+    public int size() {
+        return spectators.size();
+    }
+
+    /**
+     * This method is used to publish the state of the game before a turn.
+     * Spectators get the last move, or a snapshot if the move before it was not published.
+     * @param board The board of the game.
+     * @param currentTurn The current turn of the game.
+     */
+    public synchronized void publishUI(Board board, int currentTurn) {
+        int moveCount = board.getMoveCount();
+        int lastMove = board.getLastMove();
+        snapshot = share(codec.encodeSnapshot(moveCount, currentTurn, board.getCells()));
+        ByteBuffer frame = moveCount == sequence + 1 && lastMove >= 0
+                ? share(codec.encodeMove(lastMove, 3 - currentTurn, moveCount))
+                : snapshot;
+        sequence = moveCount;
+        publish(frame);
+    }
+
+    /**
+     * This method is used to publish the board at the end of a game.
+     * @param cells The cells of the game, with the winning tokens highlighted.
+     */
+    public synchronized void publishBoard(int[][] cells) {
+        publish(share(codec.encodeBoard(cells)));
+    }
+
+    /**
+     * This method is used to publish the winner of a game.
+     * @param victoryStatus The status of the victory.
+     */
+    public synchronized void publishWinner(int victoryStatus) {
+        publish(share(codec.encode(FrameCodec.ANNOUNCE_WINNER, victoryStatus)));
+    }
+
+    /**
+     * This method is used to disconnect every spectator once the game is closed.
+     * Spectators are disconnected after they were sent everything queued for them.
+     */
+    public void close() {
+        for (Spectator spectator : spectators) {
+            spectator.finish();
+        }
+        spectators.clear();
+    }
+
+    /**
+     * This method is used to queue a frame for every spectator.
+     * @param frame The frame.
+     */
+    private void publish(ByteBuffer frame) {
+        for (Spectator spectator : spectators) {
+            spectator.offer(frame, snapshot);
+        }
+    }
+
+    /**
+     * This method is used to copy a frame out of the buffer of the codec, so it can be shared.
+     * @param frame The frame in the buffer of the codec.
+     * @return A read-only copy of the frame.
+     */
+    private static ByteBuffer share(ByteBuffer frame) {
+        ByteBuffer copy = ByteBuffer.allocate(frame.remaining());
+        copy.put(frame).flip();
+        return copy.asReadOnlyBuffer();
+    }
+}
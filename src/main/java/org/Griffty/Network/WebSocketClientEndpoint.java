@@ -2,20 +2,40 @@ package org.Griffty.Network;
 
 import jakarta.websocket.*;
 import org.Griffty.Board;
-import org.Griffty.Controllers.ClientDeviceGameController;
-import org.Griffty.Statistics.StatisticsHandler;
+import org.Griffty.Listeners.ServerMessageListener;
 import org.Griffty.enums.InputErrorReason;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 /**
  * This class represents a WebSocket client endpoint.
  * It is used to communicate with the server and handle incoming messages.
+ * Right after connecting it asks for the binary protocol of {@link FrameCodec}.
+ * Servers that do not know it never answer, and the client keeps talking text to them.
+ * <p>
+ * If the connection is lost, the client reconnects with the resume token the server sent it,
+ * waiting twice as long after every failed attempt, until the server would have given up its seat.
+ * A {@link Heartbeat} pings the server, so a server that stopped answering is noticed and reconnected to as well.
  */
 @ClientEndpoint
 public class WebSocketClientEndpoint {
-    private Session userSession = null;
-    private ClientDeviceGameController controller;
+    private static final long FIRST_RECONNECT_DELAY = 250;
+    private static final long MAX_RECONNECT_DELAY = 4_000;
+    private volatile Session userSession = null;
+    private ServerMessageListener listener;
+    private URI endpointURI;
+    private volatile String resumeToken;
+    private final AtomicBoolean asking = new AtomicBoolean();
+    private final Heartbeat heartbeat = new Heartbeat(() -> userSession, Heartbeat.DEFAULT_INTERVAL, Heartbeat.DEFAULT_IDLE_TIMEOUT);
+    private final FrameCodec codec = new FrameCodec();
+    private volatile int protocolVersion;
+    private Board board = new Board();
+    private volatile int sequence;
+    private boolean awaitingSnapshot;
     /**
      * This method is called when a message is received from the server.
      * It handles the message based on its type.
@@ -23,39 +43,181 @@ public class WebSocketClientEndpoint {
      */
     @OnMessage
     public void onMessage(String message) {
+        heartbeat.heard();
         String[] split = message.split(":");
         switch (split[0]) {
-            case "requestGameInput" -> controller.requestGameInput();
-            case "requestPlayAgain" -> controller.playAgain();
+            case FrameCodec.HELLO -> protocolVersion = FrameCodec.negotiate(message);
+            case "resumeToken" -> resumeToken = split[1];
+            case "requestGameInput" -> ask(listener::requestGameInput);
+            case "requestPlayAgain" -> ask(listener::requestPlayAgain);
+            case "assignSide" -> listener.assignSide(Integer.parseInt(split[1]));
             case "wrongInput" -> {
                 InputErrorReason errorReason = InputErrorReason.valueOf(message.split(":")[1]);
-                controller.wrongInput(errorReason);
+                listener.wrongInput(errorReason);
             }
             case "updateUI" -> {
                 int currentTurn = Integer.parseInt(split[1]);
                 int[][] cells = Board.StringToCells(split[2]);
-                controller.updateUI(cells, currentTurn);
+                listener.updateUI(cells, currentTurn);
             }
             case "updateBoard" -> {
                 int[][] cells = Board.StringToCells(split[1]);
-                controller.updateBoard(cells);
+                listener.updateBoard(cells);
             }
-            case "announceWinner" -> {
-                int victoryStatus = Integer.parseInt(split[1]);
-                StatisticsHandler.getInstance().addGame(victoryStatus);
-                controller.announceWinner(victoryStatus);
+            case "announceWinner" -> listener.announceWinner(Integer.parseInt(split[1]));
+        }
+    }
+    /**
+     * This method is called when a binary frame is received from the server.
+     * It handles the frame based on its opcode.
+     * @param frame The frame received from the server.
+     */
+    @OnMessage
+    public void onBinaryMessage(ByteBuffer frame) {
+        heartbeat.heard();
+        switch (FrameCodec.readOpcode(frame)) {
+            case FrameCodec.REQUEST_GAME_INPUT -> ask(listener::requestGameInput);
+            case FrameCodec.REQUEST_PLAY_AGAIN -> ask(listener::requestPlayAgain);
+            case FrameCodec.ASSIGN_SIDE -> listener.assignSide(FrameCodec.readByte(frame));
+            case FrameCodec.WRONG_INPUT -> listener.wrongInput(FrameCodec.readErrorReason(frame));
+            case FrameCodec.UPDATE_UI -> {
+                int currentTurn = FrameCodec.readByte(frame);
+                listener.updateUI(FrameCodec.readCells(frame), currentTurn);
             }
+            case FrameCodec.UPDATE_BOARD -> listener.updateBoard(FrameCodec.readCells(frame));
+            case FrameCodec.MOVE -> applyMove(FrameCodec.readByte(frame), FrameCodec.readByte(frame), FrameCodec.readByte(frame));
+            case FrameCodec.SNAPSHOT -> {
+                int snapshotSequence = FrameCodec.readByte(frame);
+                int currentTurn = FrameCodec.readByte(frame);
+                applySnapshot(snapshotSequence, currentTurn, FrameCodec.readCells(frame));
+            }
+            case FrameCodec.ANNOUNCE_WINNER -> listener.announceWinner(FrameCodec.readSignedByte(frame));
         }
     }
+
+    /**
+     * This method is called when a pong is received from the server. It records the round trip time of the ping.
+     * @param pong The pong received from the server.
+     */
+    @OnMessage
+    public void onPong(PongMessage pong) {
+        heartbeat.pong(pong);
+    }
+
+    /**
+     * This method is used to get the round trip times to the server.
+     * @return The latency histogram of the connection.
+     */
+    public LatencyHistogram getLatency() {
+        return heartbeat.getLatency();
+    }
+
+    /**
+     * This method is used to ask the user what the server requested, unless the user is already answering a request.
+     * A server the client reconnected to asks again what it is waiting for,
+     * while the user may still be answering the request that came before the connection was lost.
+     * @param question The question for the user.
+     */
+    private void ask(Runnable question) {
+        if (!asking.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            question.run();
+        } finally {
+            asking.set(false);
+        }
+    }
+
+    /**
+     * This method is used to apply a move to the board of the client and show it.
+     * If a move is missing before it, the client asks for a snapshot and ignores moves until it arrives.
+     * @param col The column of the move.
+     * @param side The side that made the move.
+     * @param moveSequence The number of tokens on the board after the move.
+     */
+    private void applyMove(int col, int side, int moveSequence) {
+        if (awaitingSnapshot) {
+            return;
+        }
+        if (moveSequence != sequence + 1 || !board.putToken(col, side)) {
+            awaitingSnapshot = true;
+            synchronized (codec) {
+                sendFrame(codec.encode(FrameCodec.RESYNC));
+            }
+            return;
+        }
+        sequence = moveSequence;
+        listener.updateUI(board.getCells(), 3 - side);
+    }
+
+    /**
+     * This method is used to replace the board of the client with a snapshot and show it.
+     * @param snapshotSequence The number of tokens on the board.
+     * @param currentTurn The current turn of the game.
+     * @param cells The cells of the game.
+     */
+    private void applySnapshot(int snapshotSequence, int currentTurn, int[][] cells) {
+        board = new Board(cells);
+        sequence = snapshotSequence;
+        awaitingSnapshot = false;
+        listener.updateUI(cells, currentTurn);
+    }
+
+    /**
+     * This method is called when the WebSocket session is opened, before any message of the server arrives.
+     * @param session The WebSocket session that was opened.
+     */
+    @OnOpen
+    public void onOpen(Session session) {
+        userSession = session;
+    }
+
     /**
      * This method is called when the WebSocket session is closed.
-     * It triggers the countdown in the controller.
+     * If the connection was lost, it starts reconnecting. If the server ended the game or refused the client,
+     * it tells the listener that the client is disconnected.
      * @param session The WebSocket session that was closed.
      * @param closeReason The reason why the session was closed.
      */
     @OnClose
     public void onClose(Session session, CloseReason closeReason) {
-        controller.countdown.countDown();
+        int code = closeReason.getCloseCode().getCode();
+        if (resumeToken != null && code != CloseReason.CloseCodes.NORMAL_CLOSURE.getCode()
+                && code != CloseReason.CloseCodes.TRY_AGAIN_LATER.getCode()) {
+            Thread reconnect = new Thread(this::reconnect, "reconnect");
+            reconnect.setDaemon(true);
+            reconnect.start();
+            return;
+        }
+        heartbeat.stop();
+        listener.disconnected();
+    }
+
+    /**
+     * This method is used to take the seat back after the connection was lost.
+     * The delay between the attempts doubles up to {@value #MAX_RECONNECT_DELAY} ms, with some randomness,
+     * so clients that lost their connection at the same time do not all come back at once.
+     * If the server cannot be reached within the grace period, it tells the listener that the client is disconnected.
+     */
+    private void reconnect() {
+        long deadline = System.currentTimeMillis() + GameSessionManager.RESUME_GRACE_PERIOD;
+        long delay = FIRST_RECONNECT_DELAY;
+        while (System.currentTimeMillis() + delay < deadline) {
+            try {
+                Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay / 2));
+                connect(URI.create(endpointURI + (endpointURI.getQuery() == null ? "?" : "&")
+                        + GameSessionManager.RESUME_PARAMETER + "=" + resumeToken
+                        + "&" + GameSessionManager.SEQUENCE_PARAMETER + "=" + sequence));
+                return;
+            } catch (DeploymentException | IOException e) {
+                delay = Math.min(delay * 2, MAX_RECONNECT_DELAY);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        heartbeat.stop();
+        listener.disconnected();
     }
     /**
      * This method is called when an error occurs in the WebSocket session.
@@ -72,24 +234,105 @@ public class WebSocketClientEndpoint {
      * @param response The response to send to the server.
      */
     public void respond(String response) {
-        userSession.getAsyncRemote().sendText(response);
+        Session session = userSession;
+        if (session.isOpen()) {
+            session.getAsyncRemote().sendText(response);
+        }
+    }
+
+    /**
+     * This method is used to send the move of the user to the server.
+     * @param col The column of the move.
+     */
+    public void sendGameInput(int col) {
+        if (protocolVersion > 0) {
+            synchronized (codec) {
+                sendFrame(codec.encode(FrameCodec.GAME_INPUT, col));
+            }
+        } else {
+            respond("gameInput:" + col);
+        }
+    }
+
+    /**
+     * This method is used to send the decision of the user to play again to the server.
+     * @param decision true if the user wants to play again.
+     */
+    public void sendPlayAgain(boolean decision) {
+        if (protocolVersion > 0) {
+            synchronized (codec) {
+                sendFrame(codec.encode(FrameCodec.PLAY_AGAIN, decision ? 1 : 0));
+            }
+        } else {
+            respond("playAgain:" + decision);
+        }
+    }
+
+    /**
+     * This method is used to send a binary frame to the server.
+     * It waits until the frame is written, so the buffer of the codec can be used again afterwards.
+     * Frames that cannot be sent because the connection was lost are dropped,
+     * the server asks again for what it is waiting for once the client reconnected.
+     * @param frame The frame to send.
+     */
+    private void sendFrame(ByteBuffer frame) {
+        Session session = userSession;
+        if (!session.isOpen()) {
+            return;
+        }
+        try {
+            session.getAsyncRemote().sendBinary(frame).get();
+        } catch (ExecutionException e) {
+            // The connection was lost while the frame was sent, the close handler reconnects
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
     }
     /**
      * This method is used to connect to the server.
      * It creates a new WebSocketClientEndpoint, connects it to the server, and returns it.
-     * @param controller The controller to use for the WebSocketClientEndpoint.
+     * @param listener The listener that gets the requests and updates of the server.
      * @param endpointURI The URI of the server to connect to.
      * @return The connected WebSocketClientEndpoint.
      */
-    public static WebSocketClientEndpoint connectToServer(ClientDeviceGameController controller, URI endpointURI) {
-        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+    public static WebSocketClientEndpoint connectToServer(ServerMessageListener listener, URI endpointURI) {
         try {
             WebSocketClientEndpoint client = new WebSocketClientEndpoint();
-            client.userSession = container.connectToServer(client, endpointURI);
-            client.controller = controller;
+            client.listener = listener;
+            client.endpointURI = endpointURI;
+            client.connect(endpointURI);
+            client.heartbeat.start();
             return client;
         } catch (DeploymentException | IOException e) {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * This method is used to open a connection to the server and ask for the binary protocol.
+     * @param uri The URI of the server, with the query of the connection.
+     * @throws DeploymentException if the connection cannot be opened.
+     * @throws IOException if the connection cannot be opened.
+     */
+    private void connect(URI uri) throws DeploymentException, IOException {
+        userSession = ContainerHolder.CONTAINER.connectToServer(this, uri);
+        heartbeat.heard();
+        respond(FrameCodec.HELLO + ":" + FrameCodec.VERSION);
+    }
+
+    /**
+     * This method is used to get the WebSocket container that all clients share.
+     * @return The WebSocket container.
+     */
+    static WebSocketContainer getContainer() {
+        return ContainerHolder.CONTAINER;
+    }
+
+    /**
+     * This class holds the WebSocket container that all clients share, so they share its threads as well.
+     * It is created the first time a client connects.
+     */
+    private static class ContainerHolder {
+        private static final WebSocketContainer CONTAINER = ContainerProvider.getWebSocketContainer();
+    }
 }
\ No newline at end of file
@@ -6,6 +6,9 @@ import org.glassfish.tyrus.server.Server;
 /**
  * This class represents a WebSocket server.
  * It is used to manage the WebSocket connections and handle the server-side logic.
+ * The connections are routed to their games by the {@link GameSessionManager},
+ * the connections to the lobby are paired into games by the {@link Matchmaker},
+ * and the connections to the leaderboard are sent the best players of the {@link org.Griffty.Statistics.RatingEngine}.
  */
 public class WebSocketServer {
     public static final int PORT = 1301;
@@ -23,7 +26,6 @@ public class WebSocketServer {
         return instance;
     }
 
-    private WebSocketServerEndpoint activeConnection;
     private final Server server;
 
     /**
@@ -31,7 +33,7 @@ public class WebSocketServer {
      * It creates a new Server and starts it.
      */
     private WebSocketServer(){
-        server = new Server("localhost",  PORT, "/connect-four", null, WebSocketServerEndpoint.class);
+        server = new Server("localhost",  PORT, "/connect-four", null, WebSocketServerEndpoint.class, LobbyEndpoint.class, LeaderboardEndpoint.class);
         try {
             server.start();
         } catch (DeploymentException e) {
@@ -53,34 +55,6 @@ public class WebSocketServer {
         }
     }
 
-    /**
-     * This method is used to get the active connection of the server.
-     * @return The active connection of the server.
-     */
-    public WebSocketServerEndpoint getActiveConnection() {
-        return activeConnection;
-    }
-
-    /**
-     * This method is used to set the active connection of the server.
-     * If the active connection is not null, it throws a RuntimeException.
-     * @param activeConnection The active connection to set.
-     */
-    public synchronized void setActiveConnection(WebSocketServerEndpoint activeConnection) {
-        if (this.activeConnection != null){
-            throw new RuntimeException("Connection is already occupied");
-        }
-        this.activeConnection = activeConnection;
-        notifyAll();
-    }
-
-    /**
-     * This method is used to clear the active connection of the server.
-     */
-    public void clearActiveConnection(){
-        activeConnection = null;
-    }
-
     /**
      * This method is used to get the port of the server.
      * @return The port of the server.
@@ -88,18 +62,4 @@ public class WebSocketServer {
     public int getPort() {
         return PORT;
     }
-
-    /**
-     * This method is used to wait for a client to connect.
-     * If the active connection is null, it waits.
-     */
-    public synchronized void waitForClient() {
-        while (activeConnection == null) {
-            try {
-                wait();
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }
-    }
 }
\ No newline at end of file
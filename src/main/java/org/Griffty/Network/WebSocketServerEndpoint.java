@@ -2,25 +2,64 @@ package org.Griffty.Network;
 
 import jakarta.websocket.*;
 import jakarta.websocket.server.ServerEndpoint;
+import org.Griffty.AI.BotService;
 import org.Griffty.Board;
 import org.Griffty.Listeners.OnClientDisconnectedListener;
+import org.Griffty.Statistics.PlayerStore;
 import org.Griffty.enums.InputErrorReason;
 
 import java.io.IOException;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.Griffty.Board.cellsToString;
 
 /**
  * This class represents a WebSocket server endpoint.
  * It is used to manage the WebSocket connections and handle the server-side logic.
+ * A new endpoint is created for every connection, so every field belongs to a single client.
+ * <p>
+ * Messages are sent as text until the client asks for the binary protocol of {@link FrameCodec}.
+ * <p>
+ * Every player is sent a resume token when it joins. If its connection drops without a close frame, the endpoint
+ * keeps its seat for {@link GameSessionManager#RESUME_GRACE_PERIOD} milliseconds, and the requests of the game
+ * wait for it. A new connection with the token takes the seat back: the endpoint of the seat then talks over
+ * the new connection, sends the moves the client missed and asks again what the game is waiting for.
+ * The endpoint of the new connection only passes its messages on to the endpoint of the seat.
+ * <p>
+ * The {@link Heartbeat} of a player pings it and closes connections that stopped answering. The game only waits
+ * {@link GameSessionManager#getTurnTimeout()} milliseconds for an answer, so a player that does not move
+ * cannot hold the game forever either.
+ * <p>
+ * Binary frames are encoded into one buffer, so they are sent under a {@link ReentrantLock} rather than a monitor,
+ * and every write waits at most {@link #SEND_TIMEOUT} milliseconds. A client that stops reading cannot hold
+ * the game thread longer than that: its connection is closed as if its heartbeat had timed out.
  */
 @ServerEndpoint("/server")
 public class WebSocketServerEndpoint {
-    private OnClientDisconnectedListener listener;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int RESUME_TOKEN_BYTES = 16;
+    /**
+     * The number of milliseconds a binary frame may take to be written before the client is treated as dropped.
+     */
+    private static final long SEND_TIMEOUT = 5_000;
+    /**
+     * The largest number of missed moves a reconnected client is sent one by one. It gets a snapshot beyond that.
+     */
+    private static final int MAX_REPLAYED_MOVES = 4;
+    private volatile OnClientDisconnectedListener listener;
 
     /**
      * This method is used to get the IP addresses of the network interfaces.
@@ -51,9 +90,26 @@ public class WebSocketServerEndpoint {
     public void setOnClientDisconnectedListener(OnClientDisconnectedListener listener) {
         this.listener = listener;
     }
-    private Session serverSession;
-    private CompletableFuture<Integer> gameInput;
-    private CompletableFuture<Boolean> playAgain;
+    private volatile Session serverSession;
+    private GameSession gameSession;
+    private Spectator spectator;
+    private volatile WebSocketServerEndpoint resumed;
+    private volatile String resumeToken;
+    private volatile String playerId;
+    private final Object connectionLock = new Object();
+    private int disconnects;
+    private boolean released;
+    private volatile boolean leaving;
+    private Heartbeat heartbeat;
+    private volatile CompletableFuture<Integer> gameInput;
+    private volatile CompletableFuture<Boolean> playAgain;
+    private final FrameCodec codec = new FrameCodec();
+    private final ReentrantLock codecLock = new ReentrantLock();
+    private volatile int protocolVersion;
+    private volatile boolean resyncRequested;
+    private int sentSequence = -1;
+    private int sentGame;
+    private int sentResultGame;
 
     /**
      * This method is called when a message is received from the client.
@@ -62,35 +118,350 @@ public class WebSocketServerEndpoint {
      */
     @OnMessage
     public void OnMessage(String message){
+        WebSocketServerEndpoint resumed = this.resumed;
+        if (resumed != null) {
+            resumed.OnMessage(message);
+            return;
+        }
+        if (spectator != null) {
+            return;
+        }
+        if (heartbeat != null) {
+            heartbeat.heard();
+        }
         String[] split = message.split(":");
-        if (split[0].equals("gameInput")){
+        if (split[0].equals(FrameCodec.HELLO)) {
+            int version = FrameCodec.negotiate(message);
+            send(FrameCodec.HELLO + ":" + version);
+            protocolVersion = version;
+        }else if (split[0].equals("gameInput") && gameInput != null){
             gameInput.complete(Integer.parseInt(split[1]));
-        }else if (split[0].equals("playAgain")) {
+        }else if (split[0].equals("playAgain") && playAgain != null) {
             playAgain.complete(Boolean.parseBoolean(split[1]));
         }
     }
 
+    /**
+     * This method is called when a binary frame is received from the client.
+     * It handles the frame based on its opcode.
+     * @param frame The frame received from the client.
+     */
+    @OnMessage
+    public void OnBinaryMessage(ByteBuffer frame){
+        WebSocketServerEndpoint resumed = this.resumed;
+        if (resumed != null) {
+            resumed.OnBinaryMessage(frame);
+            return;
+        }
+        if (heartbeat != null) {
+            heartbeat.heard();
+        }
+        switch (FrameCodec.readOpcode(frame)) {
+            case FrameCodec.GAME_INPUT -> {
+                if (gameInput != null) {
+                    gameInput.complete(FrameCodec.readByte(frame));
+                }
+            }
+            case FrameCodec.PLAY_AGAIN -> {
+                if (playAgain != null) {
+                    playAgain.complete(FrameCodec.readByte(frame) != 0);
+                }
+            }
+            case FrameCodec.RESYNC -> {
+                if (spectator != null) {
+                    gameSession.getSpectators().resync(spectator);
+                } else {
+                    resyncRequested = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * This method is called when a pong is received from the client. It records the round trip time of the ping.
+     * @param pong The pong received from the client.
+     */
+    @OnMessage
+    public void OnPong(PongMessage pong){
+        WebSocketServerEndpoint resumed = this.resumed;
+        if (resumed != null) {
+            resumed.OnPong(pong);
+            return;
+        }
+        if (heartbeat != null) {
+            heartbeat.pong(pong);
+        }
+    }
+
     /**
      * This method is called when the WebSocket session is opened.
-     * It sets the active connection of the server and the server session.
+     * It seats the connection in the game named by the "game" query parameter,
+     * or adds it to the spectators of the game if the "spectate" query parameter is true.
+     * A connection with a "resume" query parameter takes back the seat of the player with that resume token.
+     * A connection with a "bot" query parameter creates a game against a bot of that difficulty,
+     * and is closed if the bots do not have that difficulty.
+     * The games of a connection with a "player" query parameter are added to the record of that player.
+     * If there is no such game or it is full, the session is closed.
      * @param session The WebSocket session that was opened.
      */
     @OnOpen
     public void OnOpen(Session session){
-        WebSocketServer.getInstance().setActiveConnection(this);
         this.serverSession = session;
+        GameSessionManager manager = GameSessionManager.getInstance();
+        String gameId = getGameId(session);
+        String token = getParameter(session, GameSessionManager.RESUME_PARAMETER);
+        if (isSpectating(session)) {
+            GameSession watched = manager.getSession(gameId);
+            if (watched != null && !watched.isClosed()) {
+                gameSession = watched;
+                spectator = watched.getSpectators().add(session);
+            }
+        } else if (token != null) {
+            GameSession game = manager.getSession(gameId);
+            WebSocketServerEndpoint player = game == null ? null : game.getPlayer(token);
+            if (player != null) {
+                // The answers to the requests sent again on resume must reach the seat
+                resumed = player;
+                if (player.resume(session, getSequence(session))) {
+                    return;
+                }
+                resumed = null;
+            }
+        } else {
+            int botDifficulty = getBotDifficulty(session);
+            if (botDifficulty < 0) {
+                try {
+                    session.close(new CloseReason(CloseReason.CloseCodes.CANNOT_ACCEPT, "Unknown bot difficulty"));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                return;
+            }
+            resumeToken = newResumeToken();
+            playerId = getParameter(session, GameSessionManager.PLAYER_PARAMETER);
+            heartbeat = new Heartbeat(() -> serverSession, manager.getHeartbeatInterval(), manager.getIdleTimeout());
+            gameSession = manager.join(gameId, botDifficulty, this);
+            if (gameSession != null) {
+                send("resumeToken:" + resumeToken);
+                heartbeat.start();
+            }
+        }
+        if (gameSession == null) {
+            try {
+                session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Game is full or does not exist"));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
     }
 
     /**
      * This method is called when the WebSocket session is closed.
-     * It clears the active connection of the server and calls the client disconnected listener.
+     * If the client closed it on purpose or the server ended the game, the player leaves the game right away.
+     * Otherwise the connection was lost, and the player keeps its seat for the grace period.
      * @param session The WebSocket session that was closed.
      * @param closeReason The reason why the session was closed.
      */
     @OnClose
     public void OnClose(Session session, CloseReason closeReason){
-        WebSocketServer.getInstance().clearActiveConnection();
-        listener.onClientDisconnected();
+        WebSocketServerEndpoint resumed = this.resumed;
+        if (resumed != null) {
+            resumed.connectionClosed(session, closeReason);
+            return;
+        }
+        if (gameSession == null) {
+            return;
+        }
+        if (spectator != null) {
+            gameSession.getSpectators().remove(spectator);
+            return;
+        }
+        connectionClosed(session, closeReason);
+    }
+
+    /**
+     * This method is used to handle the end of a connection of the player.
+     * Connections that were replaced by a resumed one are ignored.
+     * @param session The WebSocket session that was closed.
+     * @param closeReason The reason why the session was closed.
+     */
+    private void connectionClosed(Session session, CloseReason closeReason) {
+        int disconnect;
+        synchronized (connectionLock) {
+            if (session != serverSession) {
+                return;
+            }
+            disconnect = ++disconnects;
+        }
+        int code = closeReason.getCloseCode().getCode();
+        if (leaving || code == CloseReason.CloseCodes.NORMAL_CLOSURE.getCode() || code == CloseReason.CloseCodes.GOING_AWAY.getCode()) {
+            release();
+            return;
+        }
+        CompletableFuture.delayedExecutor(GameSessionManager.RESUME_GRACE_PERIOD, TimeUnit.MILLISECONDS)
+                .execute(() -> expire(disconnect));
+    }
+
+    /**
+     * This method is used to let the player leave the game once the grace period is over,
+     * unless it came back in the meantime.
+     * @param disconnect The number of the disconnect that started the grace period.
+     */
+    private void expire(int disconnect) {
+        synchronized (connectionLock) {
+            if (disconnect != disconnects) {
+                return;
+            }
+        }
+        release();
+    }
+
+    /**
+     * This method is used to let the player leave the game.
+     * It frees the seat of the player, fails the requests still waiting for an answer
+     * and calls the client disconnected listener.
+     */
+    private void release() {
+        synchronized (connectionLock) {
+            if (released) {
+                return;
+            }
+            released = true;
+        }
+        heartbeat.stop();
+        gameSession.leave(this);
+        IllegalStateException disconnected = new IllegalStateException("Client disconnected");
+        CompletableFuture<Integer> gameInput = this.gameInput;
+        if (gameInput != null) {
+            gameInput.completeExceptionally(disconnected);
+        }
+        CompletableFuture<Boolean> playAgain = this.playAgain;
+        if (playAgain != null) {
+            playAgain.completeExceptionally(disconnected);
+        }
+        if (listener != null) {
+            listener.onClientDisconnected();
+        } else if (gameSession.isHosted() && gameSession.isEmpty()) {
+            GameSessionManager.getInstance().remove(gameSession);
+        }
+    }
+
+    /**
+     * This method is used to take the seat back over a new connection.
+     * The client is sent the moves it missed, or a snapshot if it cannot catch up with moves,
+     * and the request the game is waiting for is sent again.
+     * @param session The WebSocket session of the new connection.
+     * @param clientSequence The sequence number of the last move the client saw, or -1 if it does not know it.
+     * @return true if the seat was taken back, false if the player already left the game.
+     */
+    private boolean resume(Session session, int clientSequence) {
+        Session old;
+        synchronized (connectionLock) {
+            if (released || leaving) {
+                return false;
+            }
+            old = serverSession;
+            serverSession = session;
+            disconnects++;
+        }
+        heartbeat.heard();
+        if (old.isOpen()) {
+            try {
+                old.close(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "Resumed on another connection"));
+            } catch (IOException e) {
+                // The old connection is gone anyway
+            }
+        }
+        replay(clientSequence);
+        CompletableFuture<Integer> gameInput = this.gameInput;
+        if (gameInput != null && !gameInput.isDone()) {
+            send(FrameCodec.REQUEST_GAME_INPUT, "requestGameInput");
+        }
+        CompletableFuture<Boolean> playAgain = this.playAgain;
+        if (playAgain != null && !playAgain.isDone()) {
+            send(FrameCodec.REQUEST_PLAY_AGAIN, "requestPlayAgain");
+        }
+        return true;
+    }
+
+    /**
+     * This method is used to bring a client that reconnected up to date with the move log of the game.
+     * Clients that support moves get the moves after the last one they saw, or a snapshot if they missed more
+     * than {@link #MAX_REPLAYED_MOVES}. Other clients get the whole board.
+     * If the game is over and the client was not told, it gets the final board and the winner as well.
+     * The frames are sent under the codec lock, so every write is bounded and the loop stops at the first one that fails.
+     * @param clientSequence The sequence number of the last move the client saw, or -1 if it does not know it.
+     */
+    private void replay(int clientSequence) {
+        MoveLog log = gameSession.getMoveLog().copy();
+        if (log.getGame() == 0) {
+            return;
+        }
+        Board board = log.toBoard();
+        boolean sent = true;
+        codecLock.lock();
+        try {
+            if (protocolVersion >= FrameCodec.DELTA_VERSION) {
+                if (!resyncRequested && log.getGame() == sentGame && clientSequence >= 0 && clientSequence <= log.size()
+                        && log.size() - clientSequence <= MAX_REPLAYED_MOVES) {
+                    for (int i = clientSequence; i < log.size() && sent; i++) {
+                        sent = sendFrame(codec.encodeMove(log.getColumn(i), log.getSide(i), i + 1));
+                    }
+                } else {
+                    sent = sendFrame(codec.encodeSnapshot(log.size(), log.getCurrentTurn(), board.getCells()));
+                }
+                if (sent) {
+                    resyncRequested = false;
+                    sentSequence = log.size();
+                    sentGame = log.getGame();
+                }
+            } else if (isBinary()) {
+                sent = sendFrame(codec.encodeUI(log.getCurrentTurn(), board.getCells()));
+            }
+        } finally {
+            codecLock.unlock();
+        }
+        if (!isBinary()) {
+            sent = send("updateUI:" + log.getCurrentTurn() + ":" + cellsToString(board.getCells()));
+        }
+        if (sent && log.getVictoryStatus() != 0 && sentResultGame != log.getGame()) {
+            board.checkWin(true);
+            sendBoard(board);
+            sendWinner(log.getVictoryStatus());
+        }
+    }
+
+    /**
+     * This method is used to add a finished game to the record of the player in the {@link PlayerStore},
+     * if the client sent a player id.
+     * @param board The game board at the end of the game.
+     * @param side The side the player played.
+     * @param victoryStatus The status of the victory: the side that won, or -1 for a draw.
+     */
+    public void recordGame(Board board, int side, int victoryStatus) {
+        String playerId = this.playerId;
+        if (playerId != null) {
+            PlayerStore.getInstance().addGame(playerId, board, side, victoryStatus);
+        }
+    }
+
+    /**
+     * This method is used to get the id the client sent for its player.
+     * @return The id of the player, or null if the client did not send one.
+     */
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    /**
+     * This method is used to check whether the player was given a resume token.
+     * @param token The resume token.
+     * @return true if the token is the resume token of the player.
+     */
+    boolean hasResumeToken(String token) {
+        String resumeToken = this.resumeToken;
+        return resumeToken != null && MessageDigest.isEqual(
+                resumeToken.getBytes(StandardCharsets.US_ASCII), token.getBytes(StandardCharsets.US_ASCII));
     }
 
     /**
@@ -106,39 +477,138 @@ public class WebSocketServerEndpoint {
 
     /**
      * This method is used to request game input from the client.
+     * The request is registered before it is sent, so an answer cannot arrive before it is expected.
+     * If the connection of the client is lost, the request is sent again when the client resumes.
      * @return The game input received from the client.
+     * @throws java.util.concurrent.CompletionException if the client leaves the game or does not answer within the turn timeout.
      */
     public int requestGameInput() {
-        serverSession.getAsyncRemote().sendText("requestGameInput");
-        gameInput = new CompletableFuture<>();
+        CompletableFuture<Integer> gameInput = withTurnTimeout(new CompletableFuture<>());
+        this.gameInput = gameInput;
+        if (isOpen()) {
+            send(FrameCodec.REQUEST_GAME_INPUT, "requestGameInput");
+        } else {
+            gameInput.completeExceptionally(new IllegalStateException("Client disconnected"));
+        }
         return gameInput.join();
     }
 
     /**
      * This method is used to request the client to play again.
      * @return The response from the client.
+     * @throws java.util.concurrent.CompletionException if the client leaves the game or does not answer within the turn timeout.
      */
     public boolean requestPlayAgain() {
-        serverSession.getAsyncRemote().sendText("requestPlayAgain");
-        playAgain = new CompletableFuture<>();
+        CompletableFuture<Boolean> playAgain = withTurnTimeout(new CompletableFuture<>());
+        this.playAgain = playAgain;
+        if (isOpen()) {
+            send(FrameCodec.REQUEST_PLAY_AGAIN, "requestPlayAgain");
+        } else {
+            playAgain.completeExceptionally(new IllegalStateException("Client disconnected"));
+        }
         return playAgain.join();
     }
 
+    /**
+     * This method is used to limit the time the game waits for an answer of the client.
+     * @param request The request that waits for the answer.
+     * @return The request, which fails with a {@link java.util.concurrent.TimeoutException} once the turn timeout is over.
+     */
+    private static <T> CompletableFuture<T> withTurnTimeout(CompletableFuture<T> request) {
+        long turnTimeout = GameSessionManager.getInstance().getTurnTimeout();
+        if (turnTimeout > 0) {
+            request.orTimeout(turnTimeout, TimeUnit.MILLISECONDS);
+        }
+        return request;
+    }
+
+    /**
+     * This method is used to tell the client which side it plays.
+     * @param side The side of the client, 1 for red and 2 for yellow.
+     */
+    public void assignSide(int side) {
+        if (isBinary()) {
+            codecLock.lock();
+            try {
+                sendFrame(codec.encode(FrameCodec.ASSIGN_SIDE, side));
+            } finally {
+                codecLock.unlock();
+            }
+        } else {
+            send("assignSide:" + side);
+        }
+    }
+
     /**
      * This method is used to send an error message to the client when the input is wrong.
      * @param inputErrorReason The reason why the input is wrong.
      */
     public void wrongInput(InputErrorReason inputErrorReason) {
-        serverSession.getAsyncRemote().sendText("wrongInput:" + inputErrorReason);
+        if (isBinary()) {
+            codecLock.lock();
+            try {
+                sendFrame(codec.encodeWrongInput(inputErrorReason));
+            } finally {
+                codecLock.unlock();
+            }
+        } else {
+            send("wrongInput:" + inputErrorReason);
+        }
     }
 
     /**
-     * This method is used to send the UI to the client.
-     * @param cells The cells of the game.
+     * This method is used to send the UI to the client before a turn.
+     * Clients that support moves get the last move, or a snapshot if they have not seen the move before it.
+     * Other clients get the whole board.
+     * <p>
+     * A client that is still being replayed its missed moves holds the codec lock for a while. The game thread
+     * waits at most {@link #SEND_TIMEOUT} milliseconds for it and skips the move otherwise; the move is then
+     * missing from what the client saw, so it gets a snapshot before the next turn.
+     * @param board The board of the game.
      * @param currentTurn The current turn of the game.
      */
-    public void sendUI(int[][] cells, int currentTurn) {
-        serverSession.getAsyncRemote().sendText("updateUI:" + currentTurn + ":" + cellsToString(cells));
+    public void sendUI(Board board, int currentTurn) {
+        if (protocolVersion >= FrameCodec.DELTA_VERSION) {
+            int sequence = board.getMoveCount();
+            int lastMove = board.getLastMove();
+            int game = gameSession.getMoveLog().getGame();
+            try {
+                if (!codecLock.tryLock(SEND_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                boolean sent;
+                if (!resyncRequested && sequence == sentSequence + 1 && lastMove >= 0) {
+                    sent = sendFrame(codec.encodeMove(lastMove, 3 - currentTurn, sequence));
+                } else {
+                    sent = sendFrame(codec.encodeSnapshot(sequence, currentTurn, board.getCells()));
+                }
+                // Only what reached the client counts, so a client that reconnects is sent everything it missed
+                if (sent) {
+                    resyncRequested = false;
+                    sentSequence = sequence;
+                    sentGame = game;
+                }
+            } finally {
+                codecLock.unlock();
+            }
+            return;
+        }
+        int[][] cells = board.getCells();
+        if (isBinary()) {
+            codecLock.lock();
+            try {
+                sendFrame(codec.encodeUI(currentTurn, cells));
+            } finally {
+                codecLock.unlock();
+            }
+        } else {
+            send("updateUI:" + currentTurn + ":" + cellsToString(cells));
+        }
     }
 
     /**
@@ -146,7 +616,16 @@ public class WebSocketServerEndpoint {
      * @param board The board of the game.
      */
     public void sendBoard(Board board) {
-        serverSession.getAsyncRemote().sendText("updateBoard:" + cellsToString(board.getCells()));
+        if (isBinary()) {
+            codecLock.lock();
+            try {
+                sendFrame(codec.encodeBoard(board.getCells()));
+            } finally {
+                codecLock.unlock();
+            }
+        } else {
+            send("updateBoard:" + cellsToString(board.getCells()));
+        }
     }
 
     /**
@@ -154,15 +633,220 @@ public class WebSocketServerEndpoint {
      * @param victoryStatus The status of the victory.
      */
     public void sendWinner(int victoryStatus) {
-        serverSession.getAsyncRemote().sendText("announceWinner:" + victoryStatus);
+        int game = gameSession.getMoveLog().getGame();
+        if (isBinary()) {
+            codecLock.lock();
+            try {
+                if (sendFrame(codec.encode(FrameCodec.ANNOUNCE_WINNER, victoryStatus))) {
+                    sentResultGame = game;
+                }
+            } finally {
+                codecLock.unlock();
+            }
+        } else if (send("announceWinner:" + victoryStatus)) {
+            sentResultGame = game;
+        }
+    }
+
+    /**
+     * This method is used to check whether the client is still in the game.
+     * A client whose connection was lost stays in the game until the grace period is over.
+     * @return true if the client has not left the game.
+     */
+    public boolean isOpen() {
+        synchronized (connectionLock) {
+            return !released && !leaving;
+        }
+    }
+
+    /**
+     * This method is used to get the round trip times of the connection of the player.
+     * @return The latency histogram of the player.
+     */
+    public LatencyHistogram getLatency() {
+        return heartbeat.getLatency();
+    }
+
+    /**
+     * This method is used to get the game the client joined.
+     * @return The game of the client.
+     */
+    public GameSession getGameSession() {
+        return gameSession;
+    }
+
+    /**
+     * This method is used to read the game id from the query of the session.
+     * @param session The WebSocket session of the client.
+     * @return The game id, or {@link GameSessionManager#DEFAULT_GAME_ID} if the client did not name a game.
+     */
+    private static String getGameId(Session session) {
+        String id = getParameter(session, GameSessionManager.GAME_PARAMETER);
+        return id == null ? GameSessionManager.DEFAULT_GAME_ID : id;
+    }
+
+    /**
+     * This method is used to check whether the client only wants to watch the game.
+     * @param session The WebSocket session of the client.
+     * @return true if the "spectate" query parameter is true.
+     */
+    private static boolean isSpectating(Session session) {
+        return Boolean.parseBoolean(getParameter(session, GameSessionManager.SPECTATE_PARAMETER));
+    }
+
+    /**
+     * This method is used to read the difficulty of the bot the client wants to play against.
+     * @param session The WebSocket session of the client.
+     * @return The difficulty, 0 if the client wants to play against another client,
+     *         or -1 if it asked for a bot with a difficulty the bots do not have.
+     */
+    private static int getBotDifficulty(Session session) {
+        String difficulty = getParameter(session, GameSessionManager.BOT_PARAMETER);
+        if (difficulty == null) {
+            return 0;
+        }
+        try {
+            int level = Integer.parseInt(difficulty);
+            return level >= 1 && level <= BotService.MAX_DIFFICULTY ? level : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * This method is used to read the sequence number of the last move a reconnecting client saw.
+     * @param session The WebSocket session of the client.
+     * @return The sequence number, or -1 if the client did not send a valid one.
+     */
+    private static int getSequence(Session session) {
+        try {
+            return Integer.parseInt(getParameter(session, GameSessionManager.SEQUENCE_PARAMETER));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * This method is used to read a query parameter of the session.
+     * @param session The WebSocket session of the client.
+     * @param name The name of the parameter.
+     * @return The first value of the parameter, or null if it is missing or blank.
+     */
+    static String getParameter(Session session, String name) {
+        List<String> values = session.getRequestParameterMap().get(name);
+        if (values == null || values.isEmpty() || values.get(0).isBlank()) {
+            return null;
+        }
+        return values.get(0);
+    }
+
+    /**
+     * This method is used to create a resume token that cannot be guessed.
+     * @return The resume token.
+     */
+    private static String newResumeToken() {
+        byte[] token = new byte[RESUME_TOKEN_BYTES];
+        RANDOM.nextBytes(token);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    /**
+     * This method is used to send a message to the client.
+     * Messages to a client that already disconnected are dropped.
+     * @param message The message to send.
+     * @return true if the message was handed to the connection.
+     */
+    private boolean send(String message) {
+        Session session = serverSession;
+        if (!session.isOpen()) {
+            return false;
+        }
+        session.getAsyncRemote().sendText(message);
+        return true;
+    }
+
+    /**
+     * This method is used to send a message without payload, as a frame or as text depending on the protocol.
+     * @param opcode The opcode of the frame.
+     * @param message The text message.
+     */
+    private void send(byte opcode, String message) {
+        if (isBinary()) {
+            codecLock.lock();
+            try {
+                sendFrame(codec.encode(opcode));
+            } finally {
+                codecLock.unlock();
+            }
+        } else {
+            send(message);
+        }
     }
 
     /**
-     * This method is used to disconnect the server session.
+     * This method is used to send a binary frame to the client. It must be called while holding the codec lock.
+     * It waits until the frame is written, so the buffer of the codec can be used again afterwards.
+     * A client that does not take the frame within {@link #SEND_TIMEOUT} is treated as dropped: its connection
+     * is closed as timed out, so it can still resume the game.
+     * Frames to a client that already disconnected are dropped.
+     * @param frame The frame to send.
+     * @return true if the frame was written.
+     */
+    private boolean sendFrame(ByteBuffer frame) {
+        Session session = serverSession;
+        if (!session.isOpen()) {
+            return false;
+        }
+        Future<Void> write = session.getAsyncRemote().sendBinary(frame);
+        try {
+            write.get(SEND_TIMEOUT, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            // The client disconnected while the frame was sent, the close handler takes care of it
+            return false;
+        } catch (TimeoutException e) {
+            write.cancel(true);
+            drop(session);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * This method is used to close the connection of a client that stopped taking frames.
+     * It is closed like a connection whose heartbeat timed out, so the player keeps its seat for the grace period.
+     * @param session The WebSocket session of the client.
+     */
+    private void drop(Session session) {
+        try {
+            session.close(new CloseReason(Heartbeat.TIMED_OUT, "No frame written for " + SEND_TIMEOUT + " ms"));
+        } catch (IOException e) {
+            // The connection is closing, its close handler takes care of it
+        }
+    }
+
+    /**
+     * This method is used to check whether the client asked for the binary protocol.
+     * @return true if messages are sent as binary frames.
+     */
+    private boolean isBinary() {
+        return protocolVersion > 0;
+    }
+
+    /**
+     * This method is used to disconnect the server session. The player leaves the game and cannot resume it.
      */
     public void disconnect() {
+        leaving = true;
+        Session session = serverSession;
+        if (!session.isOpen()) {
+            release();
+            return;
+        }
         try {
-            serverSession.close(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "Game ended"));
+            session.close(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "Game ended"));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
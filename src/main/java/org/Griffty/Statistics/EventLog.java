@@ -0,0 +1,262 @@
+package org.Griffty.Statistics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * This class is an append-only log of the events of the games played on this computer.
+ * <p>
+ * Every record is length-prefixed: the length of the payload, a CRC32 of the payload, and the payload itself,
+ * which is the type of the event, the time it happened in milliseconds and one value, for example the column of a move.
+ * A record torn by a crash fails its length or checksum and is cut off the next time the log is opened,
+ * together with everything after it.
+ * <p>
+ * Events are written by a single writer thread. It takes every event that queued up while it was busy,
+ * writes them with one write to the {@link FileChannel} and forces them to disk with one fsync, so the cost of
+ * the fsync is shared by all events of the batch. Appending never waits for the disk, the returned future
+ * completes once the event is durable.
+ */
+public class EventLog implements AutoCloseable {
+    /**
+     * A game started.
+     */
+    public static final byte GAME_START = 1;
+    /**
+     * The player made a move. The value is the column of the move.
+     */
+    public static final byte MOVE = 2;
+    /**
+     * The last move of the player was rejected.
+     */
+    public static final byte MOVE_UNDONE = 3;
+    /**
+     * A game ended. The value is the victory state, 0 for won, 1 for lost and 2 for drawn.
+     */
+    public static final byte RESULT = 4;
+    /**
+     * The statistics were cleared.
+     */
+    public static final byte CLEAR = 5;
+
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int PAYLOAD_BYTES = 1 + Long.BYTES + Integer.BYTES;
+    private static final int RECORD_BYTES = HEADER_BYTES + PAYLOAD_BYTES;
+    private static final int MAX_BATCH = 4_096;
+    private static final Append CLOSE = new Append((byte) 0, 0, 0);
+
+    private final FileChannel channel;
+    private final LinkedBlockingQueue<Append> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final EventReader onCommit;
+    private volatile boolean closed;
+    private long size;
+
+    /**
+     * Constructor for the EventLog class.
+     * It opens the log, or creates it if it does not exist, and cuts off a torn tail left by a crash.
+     * @param file The path of the log file.
+     * @param onCommit Called on the writer thread with every event once it is on disk, in the order of the log.
+     * @throws IOException if the log cannot be opened.
+     */
+    public EventLog(Path file, EventReader onCommit) throws IOException {
+        this.onCommit = onCommit;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        size = replay(0, (type, time, value, end) -> {
+        });
+        if (size < channel.size()) {
+            channel.truncate(size);
+            channel.force(true);
+        }
+        channel.position(size);
+        writer = new Thread(this::write, "event-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * This method is used to append an event to the log.
+     * @param type The type of the event.
+     * @param value The value of the event, or 0 if it has none.
+     * @return The offset of the end of the log after the event, which completes once the event is on disk.
+     */
+    public CompletableFuture<Long> append(byte type, int value) {
+        Append append = new Append(type, System.currentTimeMillis(), value);
+        // Checked and queued under the lock of close, so no event is queued behind the close marker
+        synchronized (this) {
+            if (closed) {
+                append.committed.completeExceptionally(new IllegalStateException("Event log is closed"));
+            } else {
+                queue.add(append);
+            }
+        }
+        return append.committed;
+    }
+
+    /**
+     * This method is used to read the events of the log.
+     * Reading stops at the end of the log or at the first record that is torn.
+     * @param offset The offset of the first record to read.
+     * @param reader Called with every event.
+     * @return The offset after the last complete record.
+     * @throws IOException if the log cannot be read.
+     */
+    public long replay(long offset, EventReader reader) throws IOException {
+        long end = channel.size();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        CRC32 crc = new CRC32();
+        while (offset + HEADER_BYTES <= end) {
+            record.clear().limit(HEADER_BYTES);
+            readFully(record, offset);
+            int length = record.getInt(0);
+            int checksum = record.getInt(Integer.BYTES);
+            if (length != PAYLOAD_BYTES || offset + HEADER_BYTES + length > end) {
+                break;
+            }
+            record.limit(RECORD_BYTES);
+            readFully(record, offset + HEADER_BYTES);
+            crc.reset();
+            crc.update(record.array(), HEADER_BYTES, PAYLOAD_BYTES);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            offset += RECORD_BYTES;
+            reader.read(record.get(HEADER_BYTES), record.getLong(HEADER_BYTES + 1), record.getInt(HEADER_BYTES + 1 + Long.BYTES), offset);
+        }
+        return offset;
+    }
+
+    /**
+     * This method is used to write the events still queued and close the log.
+     * The writer thread is not interrupted, since an interrupt during a write would close the channel.
+     * @throws IOException if the log cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.add(CLOSE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    /**
+     * This method is the loop of the writer thread. It commits the queued events in batches
+     * until it reaches the marker queued by {@link #close()}.
+     */
+    private void write() {
+        List<Append> batch = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_BATCH * RECORD_BYTES);
+        CRC32 crc = new CRC32();
+        boolean closing = false;
+        while (!closing) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - batch.size());
+            closing = batch.remove(CLOSE);
+            if (batch.isEmpty()) {
+                continue;
+            }
+            buffer.clear();
+            for (Append append : batch) {
+                int start = buffer.position();
+                buffer.putInt(PAYLOAD_BYTES).putInt(0).put(append.type).putLong(append.time).putInt(append.value);
+                crc.reset();
+                crc.update(buffer.array(), start + HEADER_BYTES, PAYLOAD_BYTES);
+                buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+            }
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+                for (Append append : batch) {
+                    size += RECORD_BYTES;
+                    onCommit.read(append.type, append.time, append.value, size);
+                    append.committed.complete(size);
+                }
+            } catch (IOException e) {
+                for (Append append : batch) {
+                    append.committed.completeExceptionally(e);
+                }
+                // Cut off the part of the batch that was written, so the next batch follows the last committed event
+                try {
+                    channel.truncate(size);
+                    channel.position(size);
+                } catch (IOException truncateException) {
+                    truncateException.printStackTrace();
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * This method is used to fill a buffer from the log.
+     * @param buffer The buffer, filled up to its limit.
+     * @param offset The offset to read from.
+     * @throws IOException if the log cannot be read.
+     */
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of the event log");
+            }
+            offset += read;
+        }
+    }
+
+    /**
+     * This interface is used to read the events of the log.
+     */
+    public interface EventReader {
+        /**
+         * This method is called with every event of the log.
+         * @param type The type of the event.
+         * @param time The time of the event in milliseconds since the epoch.
+         * @param value The value of the event.
+         * @param end The offset of the end of the event in the log.
+         */
+        void read(byte type, long time, int value, long end);
+    }
+
+    /**
+     * This class holds an event waiting to be written.
+     */
+    private static class Append {
+        private final byte type;
+        private final long time;
+        private final int value;
+        private final CompletableFuture<Long> committed = new CompletableFuture<>();
+
+        /**
+         * Constructor for the Append class.
+         * @param type The type of the event.
+         * @param time The time of the event in milliseconds since the epoch.
+         * @param value The value of the event.
+         */
+        private Append(byte type, long time, int value) {
+            this.type = type;
+            this.time = time;
+            this.value = value;
+        }
+    }
+}
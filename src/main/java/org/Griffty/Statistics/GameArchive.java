@@ -0,0 +1,504 @@
+package org.Griffty.Statistics;
+
+import org.Griffty.Util.ProgramFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Deflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * This class keeps every finished game as a {@link GameRecord}, so it can be replayed later.
+ * It uses the Singleton design pattern to ensure only one instance of this class is created.
+ * <p>
+ * Games are numbered from 0 in the order they end. They are packed into blocks of up to {@value #BLOCK_GAMES} games,
+ * and every block is compressed with Deflate and appended to a segment file. A segment is named after its first game
+ * and holds about {@value #SEGMENT_BYTES} bytes, so old segments can be moved away or deleted whole.
+ * Next to every segment lies its index, with the first game, position, length and number of games of every block,
+ * so a game is read by finding its block in the index and unpacking that block alone.
+ * <p>
+ * Games are written behind: they are packed in memory, and a block is handed to the thread of the archive when
+ * it is full, or after {@value #FLUSH_INTERVAL} milliseconds. The threads of the games never compress or write,
+ * and never wait for the disk while holding a monitor, so games on virtual threads do not pin their carrier.
+ * A block is forced to disk before its entry is added to the index, so the index only ever names whole blocks,
+ * and the next block is written over anything after the last one.
+ */
+public class GameArchive {
+    /**
+     * The largest number of games in a block.
+     */
+    public static final int BLOCK_GAMES = 1_024;
+    /**
+     * The number of bytes after which a new segment is started.
+     */
+    public static final long SEGMENT_BYTES = 64L << 20;
+    /**
+     * The number of milliseconds after which the games that ended are written.
+     */
+    public static final long FLUSH_INTERVAL = 5_000;
+    private static final int INDEX_ENTRY_BYTES = 2 * Long.BYTES + 2 * Integer.BYTES;
+    private static final String SEGMENT_SUFFIX = ".games";
+    private static final String INDEX_SUFFIX = ".index";
+    private static GameArchive instance;
+
+    /**
+     * This method is used to get the instance of the GameArchive.
+     * If the instance does not exist, it opens the archive in the program folder.
+     * @return The instance of the GameArchive.
+     */
+    public static synchronized GameArchive getInstance() {
+        if (instance == null) {
+            try {
+                instance = new GameArchive(Paths.get(ProgramFolder.resolve("games")));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::close));
+        }
+        return instance;
+    }
+
+    private final Path directory;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final Lock writeLock = new ReentrantLock();
+    private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+    private final ArrayDeque<Block> sealed = new ArrayDeque<>();
+    private int blockGames;
+    private long blockTime;
+    private long nextGame;
+    private Block unwritten;
+    private FileChannel segmentChannel;
+    private FileChannel indexChannel;
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * Constructor for the GameArchive class.
+     * It reads the indexes of the segments in the directory, creating the directory if it does not exist,
+     * and starts the thread that writes the games.
+     * @param directory The directory of the archive.
+     * @throws IOException if the directory or an index cannot be read.
+     */
+    public GameArchive(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> indexes = Files.newDirectoryStream(directory, "*" + INDEX_SUFFIX)) {
+            for (Path index : indexes) {
+                String name = index.getFileName().toString();
+                long firstGame = Long.parseLong(name.substring(0, name.length() - INDEX_SUFFIX.length()));
+                segments.put(firstGame, new Segment(firstGame, Files.readAllBytes(index)));
+            }
+        }
+        Map.Entry<Long, Segment> last = segments.lastEntry();
+        nextGame = last == null ? 0 : last.getValue().getEndGame();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * This method is used to add a finished game to the archive.
+     * The game is written with its block, and a full block is handed to the thread of the archive.
+     * @param record The record of the game.
+     * @return The number of the game in the archive.
+     */
+    public long append(GameRecord record) {
+        long game;
+        boolean full;
+        synchronized (this) {
+            record.writeTo(block, blockTime);
+            blockTime = record.getTime();
+            blockGames++;
+            game = nextGame++;
+            full = blockGames >= BLOCK_GAMES;
+            if (full) {
+                seal();
+            }
+        }
+        if (full) {
+            try {
+                flusher.execute(this::writeSealed);
+            } catch (RejectedExecutionException e) {
+                // The archive is closing, and close writes the block
+            }
+        }
+        return game;
+    }
+
+    /**
+     * This method is used to read a game from the archive. Games that ended less than
+     * {@value #FLUSH_INTERVAL} milliseconds ago may not be written yet.
+     * @param game The number of the game.
+     * @return The record of the game, or null if it is not in the archive.
+     */
+    public GameRecord read(long game) {
+        Path path;
+        long firstGame;
+        long offset;
+        int length;
+        synchronized (this) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(game);
+            if (entry == null) {
+                return null;
+            }
+            Segment segment = entry.getValue();
+            int index = segment.findBlock(game);
+            if (index < 0) {
+                return null;
+            }
+            path = segmentPath(segment.firstGame);
+            firstGame = segment.index.getLong(index * INDEX_ENTRY_BYTES);
+            offset = segment.index.getLong(index * INDEX_ENTRY_BYTES + Long.BYTES);
+            length = segment.index.getInt(index * INDEX_ENTRY_BYTES + 2 * Long.BYTES);
+        }
+        ByteBuffer compressed = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (compressed.hasRemaining()) {
+                if (channel.read(compressed, offset + compressed.position()) < 0) {
+                    throw new IOException("Unexpected end of the game archive");
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        ByteBuffer records = ByteBuffer.wrap(inflate(compressed.array()));
+        GameRecord record = null;
+        long time = 0;
+        for (long i = firstGame; i <= game; i++) {
+            record = GameRecord.readFrom(records, time);
+            time = record.getTime();
+        }
+        return record;
+    }
+
+    /**
+     * This method is used to get the number of games in the archive, with the games that are not written yet.
+     * @return The number of games.
+     */
+    public synchronized long getGameCount() {
+        return nextGame;
+    }
+
+    /**
+     * This method is used to get the number of bytes the written games take on disk, with their indexes.
+     * @return The size of the archive.
+     */
+    public synchronized long getSizeOnDisk() {
+        long size = 0;
+        for (Segment segment : segments.values()) {
+            size += segment.getEndOffset() + (long) segment.blocks * INDEX_ENTRY_BYTES;
+        }
+        return size;
+    }
+
+    /**
+     * This method is used to write the games that ended since the last write, including a block that is not full.
+     */
+    public void flush() {
+        synchronized (this) {
+            seal();
+        }
+        writeSealed();
+    }
+
+    /**
+     * This method is used to write the blocks that were taken out of memory.
+     * The blocks are taken while the lock of the archive is held, and compressed and written without it.
+     * A block that could not be written is kept and written again by the next flush.
+     */
+    private void writeSealed() {
+        writeLock.lock();
+        try {
+            while (true) {
+                if (unwritten == null) {
+                    synchronized (this) {
+                        unwritten = sealed.poll();
+                    }
+                    if (unwritten == null) {
+                        return;
+                    }
+                    unwritten.data = deflate(unwritten.data);
+                }
+                try {
+                    write(unwritten);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return;
+                }
+                unwritten = null;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * This method is used to stop writing behind, write the games that are left and close the files.
+     */
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        writeLock.lock();
+        try {
+            closeSegment();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * This method is used to take the games packed so far out of memory as a block to write.
+     * It must be called while the lock of the archive is held.
+     */
+    private void seal() {
+        if (blockGames == 0) {
+            return;
+        }
+        sealed.add(new Block(nextGame - blockGames, blockGames, block.toByteArray()));
+        block.reset();
+        blockGames = 0;
+        blockTime = 0;
+    }
+
+    /**
+     * This method is used to append a block to the last segment, or to a new one if the last one is full,
+     * and then add it to the index. It must be called while the write lock is held.
+     * @param written The block.
+     * @throws IOException if the segment or its index cannot be written.
+     */
+    private void write(Block written) throws IOException {
+        Segment segment;
+        synchronized (this) {
+            Map.Entry<Long, Segment> last = segments.lastEntry();
+            segment = last == null ? null : last.getValue();
+        }
+        if (segment == null || segment.blocks > 0 && segment.getEndOffset() + written.data.length > SEGMENT_BYTES) {
+            closeSegment();
+            segment = new Segment(written.firstGame, new byte[0]);
+            synchronized (this) {
+                segments.put(segment.firstGame, segment);
+            }
+        }
+        if (segmentChannel == null) {
+            segmentChannel = FileChannel.open(segmentPath(segment.firstGame), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            indexChannel = FileChannel.open(indexPath(segment.firstGame), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+        long offset = segment.getEndOffset();
+        writeFully(segmentChannel, ByteBuffer.wrap(written.data), offset);
+        segmentChannel.force(false);
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+        entry.putLong(written.firstGame).putLong(offset).putInt(written.data.length).putInt(written.games).flip();
+        writeFully(indexChannel, entry.duplicate(), (long) segment.blocks * INDEX_ENTRY_BYTES);
+        indexChannel.force(false);
+        synchronized (this) {
+            segment.add(entry);
+        }
+    }
+
+    /**
+     * This method is used to close the files of the segment being written. It must be called while the write lock is held.
+     * @throws IOException if a file cannot be closed.
+     */
+    private void closeSegment() throws IOException {
+        if (segmentChannel != null) {
+            segmentChannel.close();
+            indexChannel.close();
+            segmentChannel = null;
+            indexChannel = null;
+        }
+    }
+
+    /**
+     * This method is used to get the path of a segment.
+     * @param firstGame The number of the first game in the segment.
+     * @return The path of the segment.
+     */
+    private Path segmentPath(long firstGame) {
+        return directory.resolve(String.format("%012d", firstGame) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * This method is used to get the path of the index of a segment.
+     * @param firstGame The number of the first game in the segment.
+     * @return The path of the index.
+     */
+    private Path indexPath(long firstGame) {
+        return directory.resolve(String.format("%012d", firstGame) + INDEX_SUFFIX);
+    }
+
+    /**
+     * This method is used to compress a block.
+     * @param data The packed games.
+     * @return The compressed games.
+     */
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+        byte[] buffer = new byte[4_096];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    /**
+     * This method is used to decompress a block.
+     * @param data The compressed games.
+     * @return The packed games.
+     */
+    private static byte[] inflate(byte[] data) {
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * This method is used to write a buffer to a file.
+     * @param file The file.
+     * @param buffer The buffer, written up to its limit.
+     * @param position The position to write to.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeFully(FileChannel file, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += file.write(buffer, position);
+        }
+    }
+
+    /**
+     * This class holds the index of a segment in memory.
+     * Every entry is the first game, the position, the length and the number of games of a block.
+     */
+    private static class Segment {
+        private final long firstGame;
+        private ByteBuffer index;
+        private int blocks;
+
+        /**
+         * Constructor for the Segment class.
+         * An entry that was not written whole is left out.
+         * @param firstGame The number of the first game in the segment.
+         * @param index The contents of the index file.
+         */
+        private Segment(long firstGame, byte[] index) {
+            this.firstGame = firstGame;
+            this.index = ByteBuffer.wrap(index);
+            blocks = index.length / INDEX_ENTRY_BYTES;
+        }
+
+        /**
+         * This method is used to add the entry of a block to the index.
+         * @param entry The entry.
+         */
+        private void add(ByteBuffer entry) {
+            int position = blocks * INDEX_ENTRY_BYTES;
+            if (index.capacity() < position + INDEX_ENTRY_BYTES) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(64 * INDEX_ENTRY_BYTES, index.capacity() * 2));
+                grown.put(index.array(), 0, position);
+                index = grown;
+            }
+            index.put(position, entry, 0, INDEX_ENTRY_BYTES);
+            blocks++;
+        }
+
+        /**
+         * This method is used to find the block that holds a game.
+         * @param game The number of the game.
+         * @return The index of the block, or -1 if the segment does not hold the game.
+         */
+        private int findBlock(long game) {
+            int low = 0;
+            int high = blocks - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long first = index.getLong(middle * INDEX_ENTRY_BYTES);
+                int games = index.getInt(middle * INDEX_ENTRY_BYTES + 2 * Long.BYTES + Integer.BYTES);
+                if (game < first) {
+                    high = middle - 1;
+                } else if (game >= first + games) {
+                    low = middle + 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * This method is used to get the number after the last game in the segment.
+         * @return The number of the game that follows the segment.
+         */
+        private long getEndGame() {
+            if (blocks == 0) {
+                return firstGame;
+            }
+            int last = (blocks - 1) * INDEX_ENTRY_BYTES;
+            return index.getLong(last) + index.getInt(last + 2 * Long.BYTES + Integer.BYTES);
+        }
+
+        /**
+         * This method is used to get the position after the last block in the segment.
+         * @return The position where the next block is written.
+         */
+        private long getEndOffset() {
+            if (blocks == 0) {
+                return 0;
+            }
+            int last = (blocks - 1) * INDEX_ENTRY_BYTES;
+            return index.getLong(last + Long.BYTES) + index.getInt(last + 2 * Long.BYTES);
+        }
+    }
+
+    /**
+     * This class holds a block of games waiting to be written.
+     */
+    private static class Block {
+        private final long firstGame;
+        private final int games;
+        private byte[] data;
+
+        /**
+         * Constructor for the Block class.
+         * @param firstGame The number of the first game in the block.
+         * @param games The number of games in the block.
+         * @param data The packed games.
+         */
+        private Block(long firstGame, int games, byte[] data) {
+            this.firstGame = firstGame;
+            this.games = games;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.Griffty.Statistics;
+
+import org.Griffty.Board;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * This class represents a finished game in the {@link GameArchive}: the columns of its moves, the side that moved first,
+ * the result and the time the game ended.
+ * <p>
+ * A record is packed into a few bytes: one byte for the first side and the result, the time as the difference
+ * to the time of the record before it, one byte for the number of moves and the moves as nibbles, two in a byte.
+ * A game of 20 moves takes about 14 bytes before compression.
+ */
+public class GameRecord {
+    private final long time;
+    private final int firstTurn;
+    private final int victoryStatus;
+    private final byte[] moves;
+
+    /**
+     * Constructor for the GameRecord class.
+     * @param time The time the game ended, in milliseconds since the epoch.
+     * @param firstTurn The side that moved first.
+     * @param victoryStatus The status of the victory: the side that won, or -1 for a draw.
+     * @param moves The columns of the moves, in the order they were made.
+     */
+    public GameRecord(long time, int firstTurn, int victoryStatus, int[] moves) {
+        this.time = time;
+        this.firstTurn = firstTurn;
+        this.victoryStatus = victoryStatus;
+        this.moves = new byte[moves.length];
+        for (int i = 0; i < moves.length; i++) {
+            this.moves[i] = (byte) moves[i];
+        }
+    }
+
+    /**
+     * This method is used to create the record of a game that just ended.
+     * @param board The game board at the end of the game.
+     * @param firstTurn The side that moved first.
+     * @param victoryStatus The status of the victory: the side that won, or -1 for a draw.
+     * @return The record of the game.
+     */
+    public static GameRecord of(Board board, int firstTurn, int victoryStatus) {
+        return new GameRecord(System.currentTimeMillis(), firstTurn, victoryStatus, board.getMoves());
+    }
+
+    /**
+     * This method is used to get the time the game ended.
+     * @return The time, in milliseconds since the epoch.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * This method is used to get the side that moved first.
+     * @return The side that moved first.
+     */
+    public int getFirstTurn() {
+        return firstTurn;
+    }
+
+    /**
+     * This method is used to get the result of the game.
+     * @return The status of the victory: the side that won, or -1 for a draw.
+     */
+    public int getVictoryStatus() {
+        return victoryStatus;
+    }
+
+    /**
+     * This method is used to get the number of moves made in the game.
+     * @return The number of moves.
+     */
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    /**
+     * This method is used to get the column of a move.
+     * @param move The number of the move, from 0.
+     * @return The column of the move.
+     */
+    public int getMove(int move) {
+        return moves[move];
+    }
+
+    /**
+     * This method is used to get the side that made a move.
+     * @param move The number of the move, from 0.
+     * @return The side that made the move.
+     */
+    public int getSide(int move) {
+        return move % 2 == 0 ? firstTurn : 3 - firstTurn;
+    }
+
+    /**
+     * This method is used to pack the record.
+     * @param out The stream to write the record to.
+     * @param previousTime The time of the record written before it, or 0 for the first one.
+     */
+    void writeTo(ByteArrayOutputStream out, long previousTime) {
+        int result = victoryStatus == -1 ? 3 : victoryStatus;
+        out.write(result | (firstTurn == 2 ? 4 : 0));
+        // Games end on many threads, so the times are not always in order
+        long delta = time - previousTime;
+        long zigzag = (delta << 1) ^ (delta >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) (zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+        out.write(moves.length);
+        for (int i = 0; i < moves.length; i += 2) {
+            int high = i + 1 < moves.length ? moves[i + 1] : 0;
+            out.write(moves[i] | high << 4);
+        }
+    }
+
+    /**
+     * This method is used to unpack a record.
+     * @param in The buffer to read the record from, positioned at its start.
+     * @param previousTime The time of the record read before it, or 0 for the first one.
+     * @return The record.
+     */
+    static GameRecord readFrom(ByteBuffer in, long previousTime) {
+        int flags = in.get();
+        int result = flags & 3;
+        long zigzag = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        long delta = (zigzag >>> 1) ^ -(zigzag & 1);
+        int[] moves = new int[in.get() & 0xFF];
+        for (int i = 0; i < moves.length; i += 2) {
+            int packed = in.get();
+            moves[i] = packed & 0xF;
+            if (i + 1 < moves.length) {
+                moves[i + 1] = packed >> 4 & 0xF;
+            }
+        }
+        return new GameRecord(previousTime + delta, (flags & 4) != 0 ? 2 : 1, result == 3 ? -1 : result, moves);
+    }
+}
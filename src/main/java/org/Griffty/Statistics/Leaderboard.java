@@ -0,0 +1,143 @@
+package org.Griffty.Statistics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * This class ranks the players with the highest ratings.
+ * The ranking is a sorted set that is changed with every new rating, so reading the best players never sorts anything.
+ * <p>
+ * It holds the best players only, up to its capacity. Its floor is the entry of the last player it pushed off:
+ * every player it holds ranks before the floor, and every player it does not hold ranks at or after it,
+ * by rating and then by key, as {@link Entry} orders them. Each player that overflows it pushes off exactly one
+ * player, so players with the same rating are never pushed off together. The players it holds are always
+ * the true best ones, but once ranked players fall past the floor it may hold fewer than its capacity,
+ * until other players rise before the floor.
+ * Ratings are changed by a single thread, the {@link RatingEngine},
+ * while any number of threads may read the ranking. A player whose rating is being changed may be missing
+ * from a ranking read at that moment.
+ * <p>
+ * Players are shown by the key of their record, see {@link PlayerStore}, rather than the id they send,
+ * because anyone who knows the id of a player could play in its name.
+ */
+public class Leaderboard {
+    private final int capacity;
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>();
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private Entry floor;
+
+    /**
+     * Constructor for the Leaderboard class.
+     * @param capacity The number of players it ranks.
+     */
+    public Leaderboard(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * This method is used to set the rating of a player. It must only be called by one thread at a time.
+     * @param player The key of the player.
+     * @param rating The new rating of the player.
+     */
+    public void update(UUID player, int rating) {
+        Entry old = entries.remove(player);
+        if (old != null) {
+            if (old.rating == rating) {
+                entries.put(player, old);
+                return;
+            }
+            ranking.remove(old);
+        }
+        Entry entry = new Entry(player, rating);
+        // A player at or after the floor may rank after players that are not held
+        if (floor != null && entry.compareTo(floor) >= 0) {
+            return;
+        }
+        ranking.add(entry);
+        entries.put(player, entry);
+        if (entries.size() > capacity) {
+            floor = ranking.pollLast();
+            entries.remove(floor.player);
+        }
+    }
+
+    /**
+     * This method is used to get the number of players it holds.
+     * @return The number of players, at most the capacity.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * This method is used to check whether some players are not held, because it was full once.
+     * @return true if players at or after the floor are left out.
+     */
+    public boolean isTruncated() {
+        return floor != null;
+    }
+
+    /**
+     * This method is used to get the best players.
+     * @param count The number of players.
+     * @return The best players, with the highest rating first.
+     */
+    public List<Entry> top(int count) {
+        List<Entry> top = new ArrayList<>(Math.min(count, capacity));
+        Iterator<Entry> iterator = ranking.iterator();
+        while (top.size() < count && iterator.hasNext()) {
+            top.add(iterator.next());
+        }
+        return top;
+    }
+
+    /**
+     * This class holds a player in the ranking. Entries are ordered by rating, highest first, and then by player.
+     */
+    public static class Entry implements Comparable<Entry> {
+        private final UUID player;
+        private final int rating;
+
+        /**
+         * Constructor for the Entry class.
+         * @param player The key of the player.
+         * @param rating The rating of the player.
+         */
+        public Entry(UUID player, int rating) {
+            this.player = player;
+            this.rating = rating;
+        }
+
+        /**
+         * This method is used to get the key of the player.
+         * @return The key of the player.
+         */
+        public UUID getPlayer() {
+            return player;
+        }
+
+        /**
+         * This method is used to get the rating of the player.
+         * @return The rating of the player.
+         */
+        public int getRating() {
+            return rating;
+        }
+
+        /**
+         * This method is used to order the entries, by rating from highest to lowest and then by player.
+         * @param other The entry to compare with.
+         * @return A negative number if this entry ranks before the other one, a positive one if it ranks after it.
+         */
+        @Override
+        public int compareTo(Entry other) {
+            int byRating = Integer.compare(other.rating, rating);
+            return byRating != 0 ? byRating : player.compareTo(other.player);
+        }
+    }
+}
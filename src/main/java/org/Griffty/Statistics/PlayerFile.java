@@ -0,0 +1,309 @@
+package org.Griffty.Statistics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * This class stores the records of players in one file, as a hash table on disk.
+ * <p>
+ * The file starts with a header that holds the number of slots and the number of players, followed by the slots.
+ * Every slot is {@value #SLOT_BYTES} bytes: the id of the player and the values of its {@link PlayerRecord}.
+ * A player is found by hashing its id to a slot and reading the following slots until the id or an empty slot
+ * turns up, so a lookup usually takes a single read, however many players there are. New files are sparse,
+ * empty slots read as zeros. When more than {@value #MAX_LOAD_PERCENT}% of the slots are taken,
+ * the records are moved into a new file with twice as many slots, which then replaces the old one.
+ * <p>
+ * Reads may run on many threads at once, but writes must not run at the same time as other writes or reads.
+ */
+public class PlayerFile implements AutoCloseable {
+    private static final int MAGIC = 0x43465053;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 2 * Long.BYTES + 6 * Integer.BYTES;
+    private static final int INITIAL_SLOTS = 1 << 16;
+    private static final int MAX_LOAD_PERCENT = 70;
+    private static final int SLOTS_PER_READ = 8;
+    private static final int SLOTS_PER_COPY = 4_096;
+
+    private final Path path;
+    private FileChannel channel;
+    private int slots;
+    private int count;
+
+    /**
+     * Constructor for the PlayerFile class.
+     * It opens the file, or creates an empty one if it does not exist.
+     * @param path The path of the file.
+     * @throws IOException if the file cannot be opened or is not a file of players.
+     */
+    public PlayerFile(Path path) throws IOException {
+        this.path = path;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            create(channel, INITIAL_SLOTS);
+            slots = INITIAL_SLOTS;
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a player file: " + path);
+        }
+        slots = header.getInt(8);
+        count = header.getInt(12);
+    }
+
+    /**
+     * This method is used to read the record of a player.
+     * @param id The id of the player.
+     * @return The record, or null if the player is not in the file.
+     * @throws IOException if the file cannot be read.
+     */
+    public PlayerRecord read(UUID id) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SLOTS_PER_READ * SLOT_BYTES);
+        int slot = slotOf(id, slots);
+        for (int probed = 0; probed < slots; ) {
+            int n = Math.min(SLOTS_PER_READ, slots - slot);
+            buffer.clear().limit(n * SLOT_BYTES);
+            readFully(channel, buffer, offset(slot));
+            for (int i = 0; i < n; i++) {
+                int position = i * SLOT_BYTES;
+                long msb = buffer.getLong(position);
+                long lsb = buffer.getLong(position + Long.BYTES);
+                if (msb == 0 && lsb == 0) {
+                    return null;
+                }
+                if (msb == id.getMostSignificantBits() && lsb == id.getLeastSignificantBits()) {
+                    return decode(buffer, position);
+                }
+            }
+            probed += n;
+            slot = (slot + n) & (slots - 1);
+        }
+        return null;
+    }
+
+    /**
+     * This method is used to write the records of players, and then forces them to disk with one fsync.
+     * Players that are not in the file yet are added, which may grow the file.
+     * @param records The records by the id of their player.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(Map<UUID, PlayerRecord> records) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(SLOT_BYTES);
+        ByteBuffer slot = ByteBuffer.allocate(SLOT_BYTES);
+        for (Map.Entry<UUID, PlayerRecord> entry : records.entrySet()) {
+            if ((long) (count + 1) * 100 > (long) slots * MAX_LOAD_PERCENT) {
+                grow();
+            }
+            UUID id = entry.getKey();
+            int index = slotOf(id, slots);
+            while (true) {
+                probe.clear();
+                readFully(channel, probe, offset(index));
+                long msb = probe.getLong(0);
+                long lsb = probe.getLong(Long.BYTES);
+                if (msb == 0 && lsb == 0) {
+                    count++;
+                    break;
+                }
+                if (msb == id.getMostSignificantBits() && lsb == id.getLeastSignificantBits()) {
+                    break;
+                }
+                index = (index + 1) & (slots - 1);
+            }
+            encode(slot.clear(), id, entry.getValue());
+            writeFully(channel, slot.flip(), offset(index));
+        }
+        writeHeader(channel, slots, count);
+        channel.force(false);
+    }
+
+    /**
+     * This method is used to read every record in the file, in the order of the slots.
+     * @param action Called with the key and the record of every player.
+     * @throws IOException if the file cannot be read.
+     */
+    public void forEach(BiConsumer<UUID, PlayerRecord> action) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SLOTS_PER_COPY * SLOT_BYTES);
+        for (int first = 0; first < slots; first += SLOTS_PER_COPY) {
+            int n = Math.min(SLOTS_PER_COPY, slots - first);
+            buffer.clear().limit(n * SLOT_BYTES);
+            readFully(channel, buffer, offset(first));
+            for (int i = 0; i < n; i++) {
+                int position = i * SLOT_BYTES;
+                long msb = buffer.getLong(position);
+                long lsb = buffer.getLong(position + Long.BYTES);
+                if (msb != 0 || lsb != 0) {
+                    action.accept(new UUID(msb, lsb), decode(buffer, position));
+                }
+            }
+        }
+    }
+
+    /**
+     * This method is used to get the number of players in the file.
+     * @return The number of players.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * This method is used to close the file.
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * This method is used to move the records into a file with twice as many slots, which then replaces this one.
+     * The slots of the new file that are taken are kept in a bit set, so the records are moved without reading it.
+     * @throws IOException if a file cannot be read or written.
+     */
+    private void grow() throws IOException {
+        int newSlots = slots * 2;
+        Path temp = Paths.get(path + ".tmp");
+        Files.deleteIfExists(temp);
+        BitSet taken = new BitSet(newSlots);
+        try (FileChannel grown = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            create(grown, newSlots);
+            ByteBuffer buffer = ByteBuffer.allocate(SLOTS_PER_COPY * SLOT_BYTES);
+            for (int first = 0; first < slots; first += SLOTS_PER_COPY) {
+                int n = Math.min(SLOTS_PER_COPY, slots - first);
+                buffer.clear().limit(n * SLOT_BYTES);
+                readFully(channel, buffer, offset(first));
+                for (int i = 0; i < n; i++) {
+                    int position = i * SLOT_BYTES;
+                    UUID id = new UUID(buffer.getLong(position), buffer.getLong(position + Long.BYTES));
+                    if (id.getMostSignificantBits() == 0 && id.getLeastSignificantBits() == 0) {
+                        continue;
+                    }
+                    int index = slotOf(id, newSlots);
+                    while (taken.get(index)) {
+                        index = (index + 1) & (newSlots - 1);
+                    }
+                    taken.set(index);
+                    writeFully(grown, buffer.duplicate().limit(position + SLOT_BYTES).position(position), offset(index));
+                }
+            }
+            writeHeader(grown, newSlots, count);
+            grown.force(true);
+        }
+        channel.close();
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        slots = newSlots;
+    }
+
+    /**
+     * This method is used to write the header of an empty file and make it as long as its slots.
+     * @param file The file.
+     * @param slots The number of slots.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void create(FileChannel file, int slots) throws IOException {
+        writeHeader(file, slots, 0);
+        writeFully(file, ByteBuffer.allocate(1), offset(slots) - 1);
+    }
+
+    /**
+     * This method is used to write the header of a file.
+     * @param file The file.
+     * @param slots The number of slots.
+     * @param count The number of players.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeHeader(FileChannel file, int slots, int count) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(slots).putInt(count).clear();
+        writeFully(file, header, 0);
+    }
+
+    /**
+     * This method is used to pick the first slot of a player. The bits of the id are mixed,
+     * since ids that are not random UUIDs may differ in only a few of them.
+     * @param id The id of the player.
+     * @param slots The number of slots, a power of two.
+     * @return The index of the slot.
+     */
+    private static int slotOf(UUID id, int slots) {
+        long hash = (id.getMostSignificantBits() * 31 + id.getLeastSignificantBits()) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (slots - 1);
+    }
+
+    /**
+     * This method is used to get the position of a slot in the file.
+     * @param slot The index of the slot.
+     * @return The position of the slot.
+     */
+    private static long offset(int slot) {
+        return HEADER_BYTES + (long) slot * SLOT_BYTES;
+    }
+
+    /**
+     * This method is used to write a record into a slot.
+     * @param buffer The slot.
+     * @param id The id of the player.
+     * @param record The record of the player.
+     */
+    private static void encode(ByteBuffer buffer, UUID id, PlayerRecord record) {
+        buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits())
+                .putInt(record.getGamesPlayed()).putInt(record.getGamesWon()).putInt(record.getGamesLost())
+                .putInt(record.getGamesDrawn()).putInt(record.getMovesMade()).putInt(record.getRating());
+    }
+
+    /**
+     * This method is used to read a record from a slot.
+     * @param buffer The buffer holding the slot.
+     * @param position The position of the slot in the buffer.
+     * @return The record.
+     */
+    private static PlayerRecord decode(ByteBuffer buffer, int position) {
+        int values = position + 2 * Long.BYTES;
+        return new PlayerRecord(buffer.getInt(values), buffer.getInt(values + 4), buffer.getInt(values + 8),
+                buffer.getInt(values + 12), buffer.getInt(values + 16), buffer.getInt(values + 20));
+    }
+
+    /**
+     * This method is used to fill a buffer from a file.
+     * @param file The file.
+     * @param buffer The buffer, filled up to its limit.
+     * @param position The position to read from.
+     * @throws IOException if the file cannot be read or ends too early.
+     */
+    private static void readFully(FileChannel file, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = file.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of the player file");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * This method is used to write a buffer to a file.
+     * @param file The file.
+     * @param buffer The buffer, written up to its limit.
+     * @param position The position to write to.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeFully(FileChannel file, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += file.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.Griffty.Statistics;
+
+/**
+ * This class represents the record of a player of the server in the {@link PlayerStore}:
+ * the games the player played, won, lost and drew, the moves the player made and the rating of the player.
+ * It is not thread-safe, the store changes records only while it holds its lock and hands out copies.
+ */
+public class PlayerRecord {
+    private int gamesPlayed;
+    private int gamesWon;
+    private int gamesLost;
+    private int gamesDrawn;
+    private int movesMade;
+    private int rating;
+
+    /**
+     * This is the constructor of the PlayerRecord of a new player.
+     * The player has no games and the default rating.
+     */
+    public PlayerRecord() {
+        rating = PlayerStatistics.DEFAULT_RATING;
+    }
+
+    /**
+     * This is the constructor of the PlayerRecord with given values.
+     * @param gamesPlayed The number of games played.
+     * @param gamesWon The number of games won.
+     * @param gamesLost The number of games lost.
+     * @param gamesDrawn The number of games drawn.
+     * @param movesMade The number of moves made.
+     * @param rating The rating of the player.
+     */
+    public PlayerRecord(int gamesPlayed, int gamesWon, int gamesLost, int gamesDrawn, int movesMade, int rating) {
+        this.gamesPlayed = gamesPlayed;
+        this.gamesWon = gamesWon;
+        this.gamesLost = gamesLost;
+        this.gamesDrawn = gamesDrawn;
+        this.movesMade = movesMade;
+        this.rating = rating;
+    }
+
+    /**
+     * This is the copy constructor of the PlayerRecord.
+     * @param other The record to copy.
+     */
+    public PlayerRecord(PlayerRecord other) {
+        this(other.gamesPlayed, other.gamesWon, other.gamesLost, other.gamesDrawn, other.movesMade, other.rating);
+    }
+
+    /**
+     * This method is used to add a game to the record.
+     * @param result The result of the game for the player (0 for won, 1 for lost, 2 for drawn).
+     * @param moves The number of moves the player made in the game.
+     */
+    public void addGame(int result, int moves) {
+        gamesPlayed++;
+        switch (result) {
+            case 0:
+                gamesWon++;
+                break;
+            case 1:
+                gamesLost++;
+                break;
+            case 2:
+                gamesDrawn++;
+                break;
+        }
+        movesMade += moves;
+    }
+
+    /**
+     * This method is used to set the rating of the player.
+     * @param rating The new rating.
+     */
+    public void setRating(int rating) {
+        this.rating = rating;
+    }
+
+    /**
+     * This method is used to get the number of games played.
+     * @return The number of games played.
+     */
+    public int getGamesPlayed() {
+        return gamesPlayed;
+    }
+
+    /**
+     * This method is used to get the number of games won.
+     * @return The number of games won.
+     */
+    public int getGamesWon() {
+        return gamesWon;
+    }
+
+    /**
+     * This method is used to get the number of games lost.
+     * @return The number of games lost.
+     */
+    public int getGamesLost() {
+        return gamesLost;
+    }
+
+    /**
+     * This method is used to get the number of games drawn.
+     * @return The number of games drawn.
+     */
+    public int getGamesDrawn() {
+        return gamesDrawn;
+    }
+
+    /**
+     * This method is used to get the number of moves made.
+     * @return The number of moves made.
+     */
+    public int getMovesMade() {
+        return movesMade;
+    }
+
+    /**
+     * This method is used to get the rating of the player.
+     * @return The rating of the player.
+     */
+    public int getRating() {
+        return rating;
+    }
+
+    /**
+     * This method is used to get the games and moves of the record as player statistics.
+     * @return The statistics of the player.
+     */
+    public PlayerStatistics toStatistics() {
+        return new PlayerStatistics(gamesPlayed, gamesWon, gamesLost, gamesDrawn, movesMade);
+    }
+}
@@ -3,8 +3,18 @@ package org.Griffty.Statistics;
 /**
  * This class represents the statistics of a player.
  * It keeps track of the number of games played, won, lost, drawn, and the number of moves made by the player.
+ * It is not thread-safe: the statistics that change while games are played are kept by {@link StatisticsCounters},
+ * which hands out instances of this class as snapshots.
  */
 public class PlayerStatistics {
+    /**
+     * The rating of a player without any games, which is also used for clients that do not send a rating.
+     */
+    public static final int DEFAULT_RATING = 1200;
+    /**
+     * The most rating points a player can be above or below the default rating.
+     */
+    public static final int RATING_SPREAD = 400;
     private int gamesPlayed;
     private int gamesWon;
     private int gamesLost;
@@ -23,6 +33,32 @@ public class PlayerStatistics {
         movesMade = 0;
     }
 
+    /**
+     * This is the constructor of the PlayerStatistics with given values, used for snapshots of the statistics.
+     * @param gamesPlayed The number of games played.
+     * @param gamesWon The number of games won.
+     * @param gamesLost The number of games lost.
+     * @param gamesDrawn The number of games drawn.
+     * @param movesMade The number of moves made.
+     */
+    public PlayerStatistics(int gamesPlayed, int gamesWon, int gamesLost, int gamesDrawn, int movesMade) {
+        this.gamesPlayed = gamesPlayed;
+        this.gamesWon = gamesWon;
+        this.gamesLost = gamesLost;
+        this.gamesDrawn = gamesDrawn;
+        this.movesMade = movesMade;
+    }
+
+    /**
+     * This method is used to turn the status of a victory into the result of a game for one side.
+     * @param victoryStatus The status of the victory: the side that won, or -1 for a draw.
+     * @param side The side the player played.
+     * @return The result of the game for the player (0 for won, 1 for lost, 2 for drawn).
+     */
+    public static int resultOf(int victoryStatus, int side) {
+        return victoryStatus == side ? 0 : victoryStatus == -1 ? 2 : 1;
+    }
+
     /**
      * This method is used to add a game to the statistics.
      * It increments the number of games played and updates the number of games won, lost, or drawn based on the victory state.
@@ -98,4 +134,14 @@ public class PlayerStatistics {
     public int getMovesMade() {
         return movesMade;
     }
+
+    /**
+     * This method is used to get the rating of the player, which the lobby uses to match players of the same strength.
+     * It grows with every win and shrinks with every loss, relative to the number of games played,
+     * so a few games do not move a new player far from the default rating.
+     * @return The rating of the player.
+     */
+    public int getRating() {
+        return DEFAULT_RATING + RATING_SPREAD * (gamesWon - gamesLost) / (gamesPlayed + 1);
+    }
 }
\ No newline at end of file
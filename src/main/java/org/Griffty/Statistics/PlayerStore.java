@@ -0,0 +1,349 @@
+package org.Griffty.Statistics;
+
+import org.Griffty.Board;
+import org.Griffty.Util.ProgramFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * This class keeps the records of the players of the server, by the id each client sends when it joins a game.
+ * It uses the Singleton design pattern to ensure only one instance of this class is created.
+ * <p>
+ * The records live in a {@link PlayerFile}, a hash table on disk, so the number of players is not limited by the heap.
+ * The records of the {@value #CACHE_SIZE} players used last are kept in memory, and a player who is playing
+ * is found there without touching the disk.
+ * <p>
+ * Changes are written behind: a changed record stays in memory and is written to the file with the other
+ * changes of the last {@value #FLUSH_INTERVAL} milliseconds, in one batch with one fsync, or sooner when
+ * {@value #MAX_DIRTY} records changed. A changed record is never dropped from memory before it is written.
+ * Nothing waits for the disk while holding a monitor, so games on virtual threads do not pin their carrier.
+ * A crash loses at most the changes of the last interval.
+ * <p>
+ * The store counts the games of the players, their ratings are computed by the {@link RatingEngine}.
+ */
+public class PlayerStore {
+    /**
+     * The number of records kept in memory.
+     */
+    public static final int CACHE_SIZE = 100_000;
+    /**
+     * The number of milliseconds between two writes of the changed records.
+     */
+    public static final long FLUSH_INTERVAL = 1_000;
+    /**
+     * The number of changed records after which the thread that changes one more writes them itself,
+     * so records are not changed faster than the disk can take them.
+     */
+    public static final int MAX_DIRTY = 10_000;
+    private static PlayerStore instance;
+
+    /**
+     * This method is used to get the instance of the PlayerStore.
+     * If the instance does not exist, it opens the file of the players in the program folder.
+     * @return The instance of the PlayerStore.
+     */
+    public static synchronized PlayerStore getInstance() {
+        if (instance == null) {
+            try {
+                instance = new PlayerStore(new PlayerFile(Paths.get(ProgramFolder.resolve("players.db"))));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::close));
+        }
+        return instance;
+    }
+
+    private final PlayerFile file;
+    private final ReadWriteLock fileLock = new ReentrantReadWriteLock();
+    private final Lock flushLock = new ReentrantLock();
+    private final LinkedHashMap<String, PlayerRecord> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PlayerRecord> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private Map<String, PlayerRecord> dirty = new HashMap<>();
+    private Map<String, PlayerRecord> flushing = new HashMap<>();
+    private long flushes;
+    private final ScheduledExecutorService flusher;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor for the PlayerStore class.
+     * It starts the thread that writes the changed records.
+     * @param file The file of the players.
+     */
+    public PlayerStore(PlayerFile file) {
+        this.file = file;
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "player-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * This method is used to add a finished game to the record of a player.
+     * @param playerId The id of the player.
+     * @param result The result of the game for the player (0 for won, 1 for lost, 2 for drawn).
+     * @param moves The number of moves the player made in the game.
+     */
+    public void addGame(String playerId, int result, int moves) {
+        int changed = withRecord(playerId, record -> {
+            record.addGame(result, moves);
+            dirty.put(playerId, record);
+            return dirty.size();
+        });
+        if (changed >= MAX_DIRTY) {
+            flush();
+        }
+    }
+
+    /**
+     * This method is used to add a finished game to the record of a player, from the board at the end of the game.
+     * @param playerId The id of the player.
+     * @param board The game board at the end of the game.
+     * @param side The side the player played.
+     * @param victoryStatus The status of the victory: the side that won, or -1 for a draw.
+     */
+    public void addGame(String playerId, Board board, int side, int victoryStatus) {
+        addGame(playerId, PlayerStatistics.resultOf(victoryStatus, side), Long.bitCount(board.getTokens(side)));
+    }
+
+    /**
+     * This method is used to set the rating of a player. Ratings are set by the {@link RatingEngine}.
+     * @param playerId The id of the player.
+     * @param rating The new rating.
+     */
+    public void setRating(String playerId, int rating) {
+        int changed = withRecord(playerId, record -> {
+            record.setRating(rating);
+            dirty.put(playerId, record);
+            return dirty.size();
+        });
+        if (changed >= MAX_DIRTY) {
+            flush();
+        }
+    }
+
+    /**
+     * This method is used to get the record of a player.
+     * @param playerId The id of the player.
+     * @return A copy of the record, which is empty for a player without games.
+     */
+    public PlayerRecord getRecord(String playerId) {
+        return withRecord(playerId, PlayerRecord::new);
+    }
+
+    /**
+     * This method is used to get the rating of a player.
+     * @param playerId The id of the player.
+     * @return The rating of the player.
+     */
+    public int getRating(String playerId) {
+        return withRecord(playerId, PlayerRecord::getRating);
+    }
+
+    /**
+     * This method is used to read every record in the file, without the changes that were not written yet.
+     * @param action Called with the key and the record of every player.
+     */
+    public void forEach(BiConsumer<UUID, PlayerRecord> action) {
+        fileLock.readLock().lock();
+        try {
+            file.forEach(action);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            fileLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method is used to get the number of players in the file, without the new players that were not written yet.
+     * @return The number of players.
+     */
+    public int size() {
+        fileLock.readLock().lock();
+        try {
+            return file.size();
+        } finally {
+            fileLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method is used to get the number of lookups that found the player in memory.
+     * @return The number of cache hits.
+     */
+    public long getCacheHits() {
+        return hits.sum();
+    }
+
+    /**
+     * This method is used to get the number of lookups that read the player from the file.
+     * @return The number of cache misses.
+     */
+    public long getCacheMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * This method is used to write the changed records to the file.
+     * The records are copied while the lock is held, and written without it, so lookups go on while the disk works.
+     * Until they are written, the copies are still found by lookups of players that left the cache.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<String, PlayerRecord> batch = new HashMap<>();
+            synchronized (this) {
+                if (dirty.isEmpty()) {
+                    return;
+                }
+                for (Map.Entry<String, PlayerRecord> entry : dirty.entrySet()) {
+                    batch.put(entry.getKey(), new PlayerRecord(entry.getValue()));
+                }
+                dirty = new HashMap<>();
+                flushing = batch;
+            }
+            Map<UUID, PlayerRecord> records = new HashMap<>();
+            batch.forEach((playerId, record) -> records.put(keyOf(playerId), record));
+            fileLock.writeLock().lock();
+            try {
+                file.write(records);
+            } catch (IOException e) {
+                e.printStackTrace();
+                synchronized (this) {
+                    // Keep the records in memory, so the next flush tries again
+                    batch.forEach(dirty::putIfAbsent);
+                }
+            } finally {
+                fileLock.writeLock().unlock();
+            }
+            synchronized (this) {
+                flushing = new HashMap<>();
+                flushes++;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * This method is used to stop writing behind, write the changed records and close the file.
+     */
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        fileLock.writeLock().lock();
+        try {
+            file.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            fileLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This method is used to run an action on the record of a player while the lock of the store is held.
+     * The record is looked up in memory first, then in the file, or a new one is created.
+     * The file is read without the lock. A record read from the file is only kept if no other thread loaded
+     * the player meanwhile, and read again if a flush ended meanwhile, since it may have written a newer version of it.
+     * @param playerId The id of the player.
+     * @param action The action, which must not keep the record.
+     * @return The result of the action.
+     */
+    private <T> T withRecord(String playerId, Function<PlayerRecord, T> action) {
+        while (true) {
+            long flushesBefore;
+            synchronized (this) {
+                PlayerRecord record = inMemory(playerId);
+                if (record != null) {
+                    hits.increment();
+                    return action.apply(record);
+                }
+                flushesBefore = flushes;
+            }
+            misses.increment();
+            PlayerRecord read;
+            fileLock.readLock().lock();
+            try {
+                read = file.read(keyOf(playerId));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                fileLock.readLock().unlock();
+            }
+            synchronized (this) {
+                PlayerRecord record = inMemory(playerId);
+                if (record != null) {
+                    return action.apply(record);
+                }
+                if (flushes == flushesBefore) {
+                    record = read != null ? read : new PlayerRecord();
+                    cache.put(playerId, record);
+                    return action.apply(record);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method is used to find a record in memory. It must be called while the lock of the store is held.
+     * A changed record that left the cache, or a copy that is being written, is put back into the cache.
+     * @param playerId The id of the player.
+     * @return The record, or null if it is only in the file.
+     */
+    private PlayerRecord inMemory(String playerId) {
+        PlayerRecord record = cache.get(playerId);
+        if (record != null) {
+            return record;
+        }
+        record = dirty.get(playerId);
+        if (record == null) {
+            PlayerRecord written = flushing.get(playerId);
+            if (written == null) {
+                return null;
+            }
+            record = new PlayerRecord(written);
+        }
+        cache.put(playerId, record);
+        return record;
+    }
+
+    /**
+     * This method is used to turn the id a client sent into the key of its record in the file.
+     * Any string can be an id, it is hashed into a UUID, which is only done when the file is read or written.
+     * @param playerId The id of the player.
+     * @return The key of the record.
+     */
+    static UUID keyOf(String playerId) {
+        return UUID.nameUUIDFromBytes(playerId.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,280 @@
+package org.Griffty.Statistics;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class rates the players of the server with the Elo system, from the results of their games.
+ * It uses the Singleton design pattern to ensure only one instance of this class is created.
+ * <p>
+ * Games report their results to a queue and go on without waiting. A single thread takes the results
+ * off the queue in batches, computes the new ratings and writes them to the {@link PlayerStore}.
+ * Since no other thread changes ratings, the ratings need no locks and no update is lost.
+ * The same thread keeps the {@link Leaderboard} up to date, and ranks all players again from the store
+ * when ranked players falling behind left it less than half full, at most once every {@value #RERANK_INTERVAL} milliseconds.
+ * <p>
+ * Games report their results from the controllers rather than through the statistics of the player,
+ * since those count the games of the user of this computer, while ratings belong to the players of the server.
+ * <p>
+ * A player moves by {@value #PROVISIONAL_K} times the difference between its score and its expected score
+ * during its first {@value #PROVISIONAL_GAMES} games, and by {@value #K} times after them.
+ * Bots have fixed ratings by difficulty, see {@link #getBotRating(int)}.
+ */
+public class RatingEngine {
+    /**
+     * The number of games during which the rating of a player moves faster.
+     */
+    public static final int PROVISIONAL_GAMES = 30;
+    /**
+     * The largest change of rating in one game during the first games of a player.
+     */
+    public static final int PROVISIONAL_K = 40;
+    /**
+     * The largest change of rating in one game.
+     */
+    public static final int K = 20;
+    /**
+     * The number of players on the leaderboard.
+     */
+    public static final int LEADERBOARD_SIZE = 1_000;
+    /**
+     * The least number of milliseconds between two times the players are ranked again from the store.
+     */
+    public static final long RERANK_INTERVAL = 60_000;
+    private static final int BOT_BASE_RATING = 800;
+    private static final int BOT_RATING_STEP = 200;
+    private static final int MAX_BATCH = 1_024;
+    private static RatingEngine instance;
+
+    /**
+     * This method is used to get the instance of the RatingEngine.
+     * If the instance does not exist, it creates a new one.
+     * @return The instance of the RatingEngine.
+     */
+    public static synchronized RatingEngine getInstance() {
+        if (instance == null) {
+            instance = new RatingEngine(PlayerStore.getInstance());
+        }
+        return instance;
+    }
+
+    private final PlayerStore store;
+    private volatile Leaderboard leaderboard;
+    private final LinkedBlockingQueue<Result> queue = new LinkedBlockingQueue<>();
+    private final LongAdder ratedGames = new LongAdder();
+
+    /**
+     * Constructor for the RatingEngine class.
+     * It ranks the players in the store on the leaderboard and starts the thread that rates the games.
+     * @param store The store of the players.
+     */
+    public RatingEngine(PlayerStore store) {
+        this.store = store;
+        leaderboard = rank(store);
+        Thread writer = new Thread(this::run, "rating-engine");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * This method is used to report the result of a game between two players.
+     * Games with a player that did not send an id are not rated.
+     * @param red The id of the player that played red, or null.
+     * @param yellow The id of the player that played yellow, or null.
+     * @param victoryStatus The status of the victory: the side that won, or -1 for a draw.
+     */
+    public void submitGame(String red, String yellow, int victoryStatus) {
+        if (red != null && yellow != null) {
+            queue.offer(new Result(red, yellow, 0, scoreOf(1, victoryStatus)));
+        }
+    }
+
+    /**
+     * This method is used to report the result of a game between a player and a bot.
+     * @param player The id of the player, or null if it did not send one.
+     * @param side The side the player played.
+     * @param difficulty The difficulty of the bot.
+     * @param victoryStatus The status of the victory: the side that won, or -1 for a draw.
+     */
+    public void submitBotGame(String player, int side, int difficulty, int victoryStatus) {
+        if (player != null) {
+            queue.offer(new Result(player, null, getBotRating(difficulty), scoreOf(side, victoryStatus)));
+        }
+    }
+
+    /**
+     * This method is used to get the best players.
+     * @param count The number of players, at most {@link #LEADERBOARD_SIZE}.
+     * @return The best players, with the highest rating first.
+     */
+    public List<Leaderboard.Entry> getTopPlayers(int count) {
+        return leaderboard.top(count);
+    }
+
+    /**
+     * This method is used to write the best players to a JSON file.
+     * @param path The path of the file.
+     * @param count The number of players.
+     */
+    public void exportLeaderboard(String path, int count) {
+        try {
+            Files.write(Paths.get(path), new Gson().toJson(getTopPlayers(count)).getBytes());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * This method is used to get the number of results waiting to be rated.
+     * @return The depth of the queue.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * This method is used to get the number of games rated since the server started.
+     * @return The number of rated games.
+     */
+    public long getRatedGames() {
+        return ratedGames.sum();
+    }
+
+    /**
+     * This method is used to get the rating of a bot.
+     * @param difficulty The difficulty of the bot.
+     * @return The rating of the bot.
+     */
+    public static int getBotRating(int difficulty) {
+        return BOT_BASE_RATING + BOT_RATING_STEP * difficulty;
+    }
+
+    /**
+     * This method is used to get the score a player is expected to make against an opponent,
+     * from 0 for a sure loss to 1 for a sure win.
+     * @param rating The rating of the player.
+     * @param opponentRating The rating of the opponent.
+     * @return The expected score.
+     */
+    public static double expectedScore(int rating, int opponentRating) {
+        return 1 / (1 + Math.pow(10, (opponentRating - rating) / 400.0));
+    }
+
+    /**
+     * This method is the loop of the rating thread. It rates the reported games in batches, in the order they were reported.
+     */
+    private void run() {
+        List<Result> batch = new ArrayList<>(MAX_BATCH);
+        long ranked = System.nanoTime();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            for (Result result : batch) {
+                try {
+                    rate(result);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+            ratedGames.add(batch.size());
+            batch.clear();
+            // Ranking again reads the whole store, so it is not done after every batch while the board stays small
+            if (leaderboard.isTruncated() && leaderboard.size() < LEADERBOARD_SIZE / 2
+                    && System.nanoTime() - ranked >= TimeUnit.MILLISECONDS.toNanos(RERANK_INTERVAL)) {
+                ranked = System.nanoTime();
+                try {
+                    store.flush();
+                    leaderboard = rank(store);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * This method is used to rank the players on a new leaderboard, from the records in the file of the store.
+     * @param store The store of the players.
+     * @return The leaderboard.
+     */
+    private static Leaderboard rank(PlayerStore store) {
+        Leaderboard ranked = new Leaderboard(LEADERBOARD_SIZE);
+        store.forEach((player, record) -> ranked.update(player, record.getRating()));
+        return ranked;
+    }
+
+    /**
+     * This method is used to rate a game. Both players are rated from the ratings they had before the game.
+     * @param result The result of the game.
+     */
+    private void rate(Result result) {
+        PlayerRecord player = store.getRecord(result.player);
+        if (result.opponent == null) {
+            update(result.player, player, result.opponentRating, result.score);
+            return;
+        }
+        PlayerRecord opponent = store.getRecord(result.opponent);
+        update(result.player, player, opponent.getRating(), result.score);
+        update(result.opponent, opponent, player.getRating(), 1 - result.score);
+    }
+
+    /**
+     * This method is used to set the new rating of a player in the store and on the leaderboard.
+     * @param playerId The id of the player.
+     * @param record The record of the player before the new rating.
+     * @param opponentRating The rating of the opponent.
+     * @param score The score of the player, 1 for a win, 0.5 for a draw and 0 for a loss.
+     */
+    private void update(String playerId, PlayerRecord record, int opponentRating, double score) {
+        int k = record.getGamesPlayed() <= PROVISIONAL_GAMES ? PROVISIONAL_K : K;
+        int rating = (int) Math.round(record.getRating() + k * (score - expectedScore(record.getRating(), opponentRating)));
+        store.setRating(playerId, rating);
+        leaderboard.update(PlayerStore.keyOf(playerId), rating);
+    }
+
+    /**
+     * This method is used to get the score of a side in a game.
+     * @param side The side.
+     * @param victoryStatus The status of the victory: the side that won, or -1 for a draw.
+     * @return 1 for a win, 0.5 for a draw and 0 for a loss.
+     */
+    private static double scoreOf(int side, int victoryStatus) {
+        return victoryStatus == side ? 1 : victoryStatus == -1 ? 0.5 : 0;
+    }
+
+    /**
+     * This class holds the result of a game waiting to be rated.
+     */
+    private static class Result {
+        private final String player;
+        private final String opponent;
+        private final int opponentRating;
+        private final double score;
+
+        /**
+         * Constructor for the Result class.
+         * @param player The id of the player.
+         * @param opponent The id of the opponent, or null if the opponent was a bot.
+         * @param opponentRating The rating of the bot, if the opponent was one.
+         * @param score The score of the player.
+         */
+        private Result(String player, String opponent, int opponentRating, double score) {
+            this.player = player;
+            this.opponent = opponent;
+            this.opponentRating = opponentRating;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.Griffty.Statistics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class counts the statistics of a player while games are played.
+ * Every counter is a {@link LongAdder}, so any number of threads can count games and moves at once without locks
+ * and without losing updates. The statistics are read as a {@link PlayerStatistics} snapshot.
+ * <p>
+ * Every counter of a snapshot is exact, but a snapshot taken while another thread counts a game may see the game
+ * counted as played and not yet as won. Once the counting threads stopped, a snapshot holds the exact totals.
+ */
+public class StatisticsCounters {
+    private final LongAdder gamesPlayed = new LongAdder();
+    private final LongAdder gamesWon = new LongAdder();
+    private final LongAdder gamesLost = new LongAdder();
+    private final LongAdder gamesDrawn = new LongAdder();
+    private final LongAdder movesMade = new LongAdder();
+
+    /**
+     * This method is used to add a game to the statistics.
+     * @param victoryState The state of the victory (0 for won, 1 for lost, 2 for drawn).
+     */
+    public void addGame(int victoryState) {
+        gamesPlayed.increment();
+        switch (victoryState) {
+            case 0:
+                gamesWon.increment();
+                break;
+            case 1:
+                gamesLost.increment();
+                break;
+            case 2:
+                gamesDrawn.increment();
+                break;
+        }
+    }
+
+    /**
+     * This method is used to add a move to the statistics.
+     */
+    public void addMove() {
+        movesMade.increment();
+    }
+
+    /**
+     * This method is used to remove a move from the statistics.
+     */
+    public void removeMove() {
+        movesMade.decrement();
+    }
+
+    /**
+     * This method is used to set the counters to given statistics.
+     * It must not be called while other threads are counting, since their updates could be lost.
+     * @param statistics The statistics to start from.
+     */
+    public void reset(PlayerStatistics statistics) {
+        set(gamesPlayed, statistics.getGamesPlayed());
+        set(gamesWon, statistics.getGamesWon());
+        set(gamesLost, statistics.getGamesLost());
+        set(gamesDrawn, statistics.getGamesDrawn());
+        set(movesMade, statistics.getMovesMade());
+    }
+
+    /**
+     * This method is used to read the statistics.
+     * @return A snapshot of the statistics.
+     */
+    public PlayerStatistics snapshot() {
+        return new PlayerStatistics(gamesPlayed.intValue(), gamesWon.intValue(), gamesLost.intValue(),
+                gamesDrawn.intValue(), movesMade.intValue());
+    }
+
+    /**
+     * This method is used to set a counter to a value.
+     * @param counter The counter.
+     * @param value The value.
+     */
+    private static void set(LongAdder counter, int value) {
+        counter.reset();
+        counter.add(value);
+    }
+}
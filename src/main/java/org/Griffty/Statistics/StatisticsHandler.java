@@ -1,124 +1,283 @@
 package org.Griffty.Statistics;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.Griffty.Util.ProgramFolder;
 
-import javax.swing.*;
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This class is responsible for handling player statistics.
  * It uses the Singleton design pattern to ensure only one instance of this class is created.
+ * The instance is created by the class loader the first time it is needed, which publishes it safely to every thread.
+ * <p>
+ * Every change is appended to an {@link EventLog}: the start of a game, every move and the result.
+ * The statistics are not written on every change, but as a snapshot together with the offset of the log they include,
+ * every {@value #SNAPSHOT_INTERVAL} events and on exit. On startup the snapshot is read and the events logged after it
+ * are applied again, so a crash loses nothing that reached the log.
+ * <p>
+ * Games and moves can be counted from any thread without locks. They are counted twice: at once in
+ * {@link StatisticsCounters}, which are read by {@link #getCurrentStats()}, and by the writer thread of the log
+ * once they are on disk. Snapshots are taken from the second count, so they always match the offset they are stored with.
  */
 public class StatisticsHandler {
-    private static StatisticsHandler instance;
+    /**
+     * The number of events between two snapshots of the statistics.
+     */
+    public static final int SNAPSHOT_INTERVAL = 1_000;
 
     /**
      * This method returns the single instance of the StatisticsHandler class.
-     * If the instance is null, it creates a new instance.
+     * The instance is created on the first call.
      * @return the single instance of the StatisticsHandler class.
      */
     public static StatisticsHandler getInstance() {
-        if (instance == null){
-            instance = new StatisticsHandler();
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
 
-    private static final String savePath = getSystemSpecificProgramFolder() + File.separator + "statistics.json";
-    private PlayerStatistics currentStats = new PlayerStatistics();
+    private static final String savePath = ProgramFolder.resolve("statistics.json");
+    private static final String logPath = ProgramFolder.resolve("events.log");
+    private static final String playerIdPath = ProgramFolder.resolve("player.id");
+    private final StatisticsCounters counters = new StatisticsCounters();
+    private final AtomicBoolean gameInProgress = new AtomicBoolean();
+    private final EventLog log;
+    private PlayerStatistics committedStats = new PlayerStatistics();
+    private long committedOffset;
+    private long snapshotOffset;
+    private int eventsSinceSnapshot;
 
     /**
      * The constructor is private to prevent creating multiple instances.
-     * It reads the current statistics from a file and adds a shutdown hook to write the statistics to the file.
+     * It reads the last snapshot of the statistics, applies the events logged after it
+     * and adds a shutdown hook to close the log and write a final snapshot.
      */
     private StatisticsHandler() {
-        currentStats = readStat();
-        Runtime.getRuntime().addShutdownHook(new Thread(this::writeStat));
+        snapshotOffset = readStat();
+        try {
+            log = new EventLog(Paths.get(logPath), (type, time, value, end) -> commit(type, value, end));
+            committedOffset = log.replay(snapshotOffset, (type, time, value, end) -> recover(type, value));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        counters.reset(committedStats);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
     }
 
     /**
-     * This method reads the player statistics from a file.
-     * If the file does not exist, it returns a new PlayerStatistics object.
-     * @return the player statistics.
+     * This method reads the last snapshot of the player statistics from a file.
+     * A file written before the event log existed holds only the statistics, which include no event of the log.
+     * If the file does not exist, the statistics are empty.
+     * @return the offset of the event log the snapshot includes.
      */
-    private PlayerStatistics readStat() {
+    private long readStat() {
         Gson gson = new Gson();
         File file = new File(savePath);
         if (!file.exists()){
-            return new PlayerStatistics();
+            return 0;
         }
         try {
-            return gson.fromJson(new String(Files.readAllBytes(file.toPath())), PlayerStatistics.class);
+            JsonObject json = JsonParser.parseString(new String(Files.readAllBytes(file.toPath()))).getAsJsonObject();
+            if (!json.has("stats")) {
+                committedStats = gson.fromJson(json, PlayerStatistics.class);
+                return 0;
+            }
+            Snapshot snapshot = gson.fromJson(json, Snapshot.class);
+            committedStats = snapshot.stats;
+            return snapshot.logOffset;
         } catch (Exception e) {
             e.printStackTrace();
-            return new PlayerStatistics();
+            committedStats = new PlayerStatistics();
+            return 0;
         }
     }
 
     /**
-     * This method writes the current player statistics to a file.
+     * This method writes a snapshot of the player statistics to a file.
+     * The snapshot is written to a temporary file first and moved over the old one, so a crash never leaves half of it.
+     * @param logOffset the offset of the event log the snapshot includes.
+     * @param stats the statistics.
      */
-    private void writeStat() {
+    private void writeStat(long logOffset, PlayerStatistics stats) {
         Gson gson = new Gson();
-        File file = new File(savePath);
+        Snapshot snapshot = new Snapshot();
+        snapshot.logOffset = logOffset;
+        snapshot.stats = stats;
+        Path file = Paths.get(savePath);
+        Path temp = Paths.get(savePath + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(gson.toJson(snapshot).getBytes());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            snapshotOffset = logOffset;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * This method closes the event log, which writes the events still queued, and writes a final snapshot.
+     */
+    private void close() {
         try {
-            Files.write(file.toPath(), gson.toJson(currentStats).getBytes());
-        } catch (Exception e) {
+            log.close();
+        } catch (IOException e) {
             e.printStackTrace();
         }
+        if (committedOffset > snapshotOffset) {
+            writeStat(committedOffset, committedStats);
+        }
+    }
+
+    /**
+     * This method is called on the writer thread of the log with every event once it is on disk.
+     * It applies the event to the committed statistics and writes a snapshot every {@value #SNAPSHOT_INTERVAL} events,
+     * and at once when the statistics were cleared.
+     * @param type the type of the event.
+     * @param value the value of the event.
+     * @param end the offset of the end of the event in the log.
+     */
+    private void commit(byte type, int value, long end) {
+        apply(type, value);
+        committedOffset = end;
+        if (++eventsSinceSnapshot >= SNAPSHOT_INTERVAL || type == EventLog.CLEAR) {
+            eventsSinceSnapshot = 0;
+            writeStat(end, committedStats);
+        }
+    }
+
+    /**
+     * This method applies an event to the committed statistics, when it is on disk and when the log is replayed.
+     * @param type the type of the event.
+     * @param value the value of the event.
+     */
+    private void apply(byte type, int value) {
+        switch (type) {
+            case EventLog.MOVE:
+                committedStats.addMove();
+                break;
+            case EventLog.MOVE_UNDONE:
+                committedStats.removeMove();
+                break;
+            case EventLog.RESULT:
+                committedStats.addGame(value);
+                break;
+            case EventLog.CLEAR:
+                committedStats = new PlayerStatistics();
+                break;
+        }
     }
 
     /**
-     * This method returns the system-specific program folder.
-     * If the folder does not exist, it creates the folder.
-     * @return the system-specific program folder.
+     * This method applies an event of the log when it is replayed on startup, and remembers whether a game was left open.
+     * @param type the type of the event.
+     * @param value the value of the event.
      */
-    private static String getSystemSpecificProgramFolder() {
-        String homePath = System.getProperty("user.home");
-        String folderPath = homePath + File.separator + "GrifftyConnectFour";
-        File folder = new File(folderPath);
-        if (!folder.exists()){
-            folder.mkdirs();
+    private void recover(byte type, int value) {
+        apply(type, value);
+        if (type == EventLog.GAME_START) {
+            gameInProgress.set(true);
+        } else if (type == EventLog.RESULT) {
+            gameInProgress.set(false);
         }
-        return folderPath;
     }
 
     /**
      * This method adds a game to the player statistics.
-     * @param victoryState the state of the game.
+     * @param victoryState the result of the game for the user (0 for won, 1 for lost, 2 for drawn),
+     *                     see {@link PlayerStatistics#resultOf(int, int)}.
      */
     public void addGame(int victoryState){
-        currentStats.addGame(victoryState);
+        if (!gameInProgress.getAndSet(false)) {
+            log.append(EventLog.GAME_START, 0);
+        }
+        counters.addGame(victoryState);
+        log.append(EventLog.RESULT, victoryState);
     }
 
     /**
      * This method adds a move to the player statistics.
+     * The first move after a result starts a new game in the log.
+     * @param col the column of the move.
      */
-    public void addMove(){
-        currentStats.addMove();
+    public void addMove(int col){
+        if (gameInProgress.compareAndSet(false, true)) {
+            log.append(EventLog.GAME_START, 0);
+        }
+        counters.addMove();
+        log.append(EventLog.MOVE, col);
     }
 
     /**
      * This method removes a move from the player statistics.
      */
     public void removeMove() {
-        currentStats.removeMove();
+        counters.removeMove();
+        log.append(EventLog.MOVE_UNDONE, 0);
+    }
+
+    /**
+     * This method returns the id of the player on this computer, which servers keep the record of the player under.
+     * The id is created the first time it is needed and kept in the program folder.
+     * @return the id of the player.
+     */
+    public synchronized String getPlayerId() {
+        File file = new File(playerIdPath);
+        try {
+            if (file.exists()) {
+                return new String(Files.readAllBytes(file.toPath())).trim();
+            }
+            String playerId = UUID.randomUUID().toString();
+            Files.write(file.toPath(), playerId.getBytes());
+            return playerId;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     /**
-     * This method returns the current player statistics.
+     * This method returns a snapshot of the current player statistics.
      * @return the current player statistics.
      */
     public PlayerStatistics getCurrentStats() {
-        return currentStats;
+        return counters.snapshot();
     }
 
     /**
-     * This method clears the player statistics and writes the empty statistics to the file.
+     * This method clears the player statistics. The empty statistics are written to the file once the log has the event.
+     * It should not be called while games are played, since moves counted at the same time may be lost.
      */
     public void clearStats() {
-        currentStats = new PlayerStatistics();
-        writeStat();
+        counters.reset(new PlayerStatistics());
+        log.append(EventLog.CLEAR, 0);
+    }
+
+    /**
+     * This class is the form in which a snapshot of the statistics is stored as JSON.
+     */
+    private static class Snapshot {
+        long logOffset;
+        PlayerStatistics stats;
+    }
+
+    /**
+     * This class holds the instance of the StatisticsHandler. The class loader initializes it on first use,
+     * once and with the memory effects visible to every thread, without locking on every call.
+     */
+    private static class Holder {
+        private static final StatisticsHandler INSTANCE = new StatisticsHandler();
     }
-}
\ No newline at end of file
+}
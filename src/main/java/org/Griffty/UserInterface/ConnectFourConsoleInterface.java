@@ -67,9 +67,9 @@ public class ConnectFourConsoleInterface implements IUserInterface{
     @Override
     public String serverAddress() {
         userInput = new Scanner(System.in);
-        System.out.println("Enter server address: ");
+        System.out.println("Enter server address (add /<game> to join a hosted game, /lobby to be matched with a player or /bot to play a bot): ");
         String input = userInput.next();
-        while (!input.matches("^(?:[0-9]{1,3}\\.){3}[0-9]{1,3}$")){
+        while (!input.matches(SERVER_ADDRESS_PATTERN)){
             wrongInput(WRONG_SERVER_CREDENTIALS);
             input = userInput.next();
         }
@@ -114,10 +114,11 @@ public class ConnectFourConsoleInterface implements IUserInterface{
                 1 - Easy
                 2 - Medium
                 3 - Hard
-                4 - Demonic""");
+                4 - Demonic
+                5 - Perfect""");
         try {
             int dif = userInput.nextInt();
-            if (dif > 4 || dif < 1) {
+            if (dif > PERFECT_DIFFICULTY || dif < 1) {
                 wrongInput(DIF_OUT_OF_BOUNDS);
                 return getDifficulty();
             }
@@ -191,7 +192,7 @@ public class ConnectFourConsoleInterface implements IUserInterface{
             case NOT_A_NUMBER -> System.out.println("You can input only numbers");
             case NOT_A_CONFIRMATION -> System.out.println("You can only input y or n");
             case WRONG_SERVER_CREDENTIALS -> System.out.println("Wrong server credentials. Address should look like 123.456.78.90 or similar. Try again");
-            case DIF_OUT_OF_BOUNDS -> System.out.println("You can only input numbers from 1 to 4");
+            case DIF_OUT_OF_BOUNDS -> System.out.println("You can only input numbers from 1 to " + PERFECT_DIFFICULTY);
             default ->
                     System.out.println("Wrong input");
         }
@@ -162,7 +162,7 @@ public class ConnectFourGUI extends JFrame implements IUserInterface, BackButton
     @Override
     public String serverAddress() {
         String ip = "";
-        while (!ip.matches("^(?:[0-9]{1,3}\\.){3}[0-9]{1,3}$")) {
+        while (!ip.matches(SERVER_ADDRESS_PATTERN)) {
             InputDialog serverIP = DialogFactory.getInputBuilder()
                     .addInputField("Server address")
                     .setCenterText(true)
@@ -216,6 +216,7 @@ public class ConnectFourGUI extends JFrame implements IUserInterface, BackButton
                 .addChoice("Medium", 1)
                 .addChoice("Hard", 2)
                 .addChoice("Demonic", 3)
+                .addChoice("Perfect", PERFECT_DIFFICULTY)
                 .setCanBeClosed(false)
                 .build();
         return difficulty.getChoice();
@@ -9,6 +9,15 @@ import java.util.List;
  * It is used to interact with the user and update the game state.
  */
 public interface IUserInterface {
+    /**
+     * The difficulty level at which the AI plays perfectly instead of searching to a limited depth.
+     */
+    int PERFECT_DIFFICULTY = 5;
+    /**
+     * The format of a server address: an IPv4 address, optionally followed by a slash and the id of the game to join.
+     */
+    String SERVER_ADDRESS_PATTERN = "^(?:[0-9]{1,3}\\.){3}[0-9]{1,3}(?:/[A-Za-z0-9_-]+)?$";
+
     /**
      * This method gets the game input from the user.
      * @return the game input.
@@ -56,7 +65,7 @@ public interface IUserInterface {
 
     /**
      * This method gets the server address from the user.
-     * @return the server address.
+     * @return the server address, matching {@link #SERVER_ADDRESS_PATTERN}.
      */
     String serverAddress();
 
@@ -104,7 +113,7 @@ public interface IUserInterface {
 
     /**
      * This method gets the difficulty level from the user.
-     * @return the difficulty level.
+     * @return the difficulty level, or {@link #PERFECT_DIFFICULTY} for perfect play.
      */
     int getDifficulty();
 }
\ No newline at end of file
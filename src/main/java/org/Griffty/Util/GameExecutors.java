@@ -0,0 +1,66 @@
+package org.Griffty.Util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class creates the executors that run hosted games.
+ * A hosted game spends almost all of its time waiting for its players, so every game gets a thread of its own.
+ * With virtual threads a waiting game costs a few kilobytes of heap instead of a platform thread and its stack.
+ */
+public final class GameExecutors {
+    /**
+     * Runs every game on a new virtual thread. Needs Java 21, older versions use platform threads instead.
+     */
+    public static final String VIRTUAL = "virtual";
+    /**
+     * Runs every game on a platform thread from a cached pool.
+     */
+    public static final String PLATFORM = "platform";
+
+    private GameExecutors() {
+    }
+
+    /**
+     * This method creates an executor that runs every game on a thread of its own.
+     * @param type Either {@link #VIRTUAL} or {@link #PLATFORM}.
+     * @return The executor.
+     */
+    public static ExecutorService newGameExecutor(String type) {
+        switch (type) {
+            case VIRTUAL:
+                ExecutorService executor = newVirtualThreadExecutor();
+                return executor != null ? executor : Executors.newCachedThreadPool();
+            case PLATFORM:
+                return Executors.newCachedThreadPool();
+            default:
+                throw new IllegalArgumentException("Unknown executor type: " + type);
+        }
+    }
+
+    /**
+     * This method checks whether the running Java version supports virtual threads.
+     * @return true if virtual threads are available.
+     */
+    public static boolean isVirtualThreadSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * This method creates an executor that starts a new virtual thread for every task.
+     * It is looked up by reflection because the program is compiled for a Java version without virtual threads.
+     * @return The executor, or null if virtual threads are not available.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.Griffty.Util;
+
+import java.io.File;
+
+/**
+ * This class gives access to the folder where the game keeps its files.
+ */
+public class ProgramFolder {
+    /**
+     * This method returns the system-specific program folder.
+     * If the folder does not exist, it creates the folder.
+     * @return the system-specific program folder.
+     */
+    public static String getPath() {
+        String homePath = System.getProperty("user.home");
+        String folderPath = homePath + File.separator + "GrifftyConnectFour";
+        File folder = new File(folderPath);
+        if (!folder.exists()){
+            folder.mkdirs();
+        }
+        return folderPath;
+    }
+
+    /**
+     * This method returns the path of a file in the program folder.
+     * @param fileName the name of the file.
+     * @return the path of the file.
+     */
+    public static String resolve(String fileName) {
+        return getPath() + File.separator + fileName;
+    }
+}